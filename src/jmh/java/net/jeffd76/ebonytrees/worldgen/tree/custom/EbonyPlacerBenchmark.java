@@ -0,0 +1,142 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.RandomSource;
+import net.minecraft.util.valueproviders.UniformInt;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraft.world.level.levelgen.feature.featuresize.TwoLayersFeatureSize;
+import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacer;
+import net.minecraft.world.level.levelgen.feature.stateproviders.BlockStateProvider;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline numbers for the ebony placers: ns/tree from the score, allocations/tree from gc.alloc.rate.norm
+ * (run with -prof gc, the jmh task does this) and blocks/probes per tree from the Counters totals divided by trees.
+ * Jungle log and leaves stand in for the ebony blocks, which only exist once FML has run the registries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EbonyPlacerBenchmark {
+    private static final int GROUND_Y = 64;
+    private static final BlockPos ORIGIN = new BlockPos(0, GROUND_Y, 0);
+    private static final int FOLIAGE_OFFSET = 3;
+
+    // Trees are cycled through a fixed seed window so every run measures the same population
+    private static final int SEED_WINDOW = 64;
+
+    static {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Param({"4", "5", "6", "7"})
+    public int radius;
+
+    @Param({"8", "12", "16", "22"})
+    public int height;
+
+    private InMemoryLevel level;
+    private TreeConfiguration config;
+    private EbonyTrunkPlacer trunkPlacer;
+    private EbonyFoliagePlacer foliagePlacer;
+    private FoliagePlacer.FoliageAttachment attachment;
+    private RandomSource random;
+    private int seed;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long trees;
+        public long blocks;
+        public long probes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.trees = 0;
+            this.blocks = 0;
+            this.probes = 0;
+        }
+
+        void record(InMemoryLevel level) {
+            this.trees++;
+            this.blocks += level.writes();
+            this.probes += level.probes();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.level = new InMemoryLevel(GROUND_Y);
+        this.trunkPlacer = new EbonyTrunkPlacer(12, 6, 4, EbonyTrunkPlacer.GenerationContext.WORLDGEN);
+        this.foliagePlacer = new EbonyFoliagePlacer(UniformInt.of(7, 9), UniformInt.of(2, 4), 10);
+        this.config = new TreeConfiguration.TreeConfigurationBuilder(
+                BlockStateProvider.simple(Blocks.JUNGLE_LOG),
+                this.trunkPlacer,
+                BlockStateProvider.simple(Blocks.JUNGLE_LEAVES),
+                this.foliagePlacer,
+                new TwoLayersFeatureSize(1, 0, 2))
+                .build();
+        this.attachment = new FoliagePlacer.FoliageAttachment(ORIGIN.above(this.height), 0, false);
+        this.random = RandomSource.create(0L);
+    }
+
+    private void nextTree() {
+        this.level.reset();
+        this.random.setSeed(this.seed++ % SEED_WINDOW);
+    }
+
+    @Benchmark
+    public List<FoliagePlacer.FoliageAttachment> placeTrunk(Counters counters) {
+        nextTree();
+        List<FoliagePlacer.FoliageAttachment> attachments =
+                this.trunkPlacer.placeTrunk(this.level, this.level, this.random, this.height, ORIGIN, this.config);
+        counters.record(this.level);
+        return attachments;
+    }
+
+    @Benchmark
+    public InMemoryLevel createFoliage(Counters counters) {
+        nextTree();
+        int foliageHeight = this.foliagePlacer.foliageHeight(this.random, this.height, this.config);
+        this.foliagePlacer.createFoliage(this.level, this.level, this.random, this.config, this.height,
+                this.attachment, foliageHeight, this.radius, FOLIAGE_OFFSET);
+        counters.record(this.level);
+        return this.level;
+    }
+
+    @Benchmark
+    public InMemoryLevel fullTree(Counters counters) {
+        nextTree();
+        int foliageHeight = this.foliagePlacer.foliageHeight(this.random, this.height, this.config);
+        List<FoliagePlacer.FoliageAttachment> attachments =
+                this.trunkPlacer.placeTrunk(this.level, this.level, this.random, this.height, ORIGIN, this.config);
+        for (FoliagePlacer.FoliageAttachment foliageAttachment : attachments) {
+            this.foliagePlacer.createFoliage(this.level, this.level, this.random, this.config, this.height,
+                    foliageAttachment, foliageHeight, this.radius, FOLIAGE_OFFSET);
+        }
+        counters.record(this.level);
+        return this.level;
+    }
+}
@@ -0,0 +1,109 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.LevelSimulatedReader;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacer;
+import net.minecraft.world.level.material.FluidState;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Flat in-memory stand-in for the world generation region: solid dirt below groundY, air above, plus whatever the
+ * placers wrote. Doubles as the trunk and foliage setter so the benchmarks and the simulator don't allocate
+ * callbacks per tree.
+ */
+public class InMemoryLevel implements LevelSimulatedReader, BiConsumer<BlockPos, BlockState>, FoliagePlacer.FoliageSetter {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final BlockState GROUND = Blocks.DIRT.defaultBlockState();
+
+    private final Long2ObjectOpenHashMap<BlockState> blocks = new Long2ObjectOpenHashMap<>(4096);
+    private final int groundY;
+
+    private int probes;
+    private int writes;
+
+    public InMemoryLevel(int groundY) {
+        this.groundY = groundY;
+    }
+
+    /**
+     * Clears everything written so far without giving back the backing storage
+     */
+    public void reset() {
+        this.blocks.clear();
+        this.probes = 0;
+        this.writes = 0;
+    }
+
+    public BlockState getBlockState(BlockPos pPos) {
+        BlockState state = this.blocks.get(pPos.asLong());
+        if (state != null) {
+            return state;
+        }
+
+        return pPos.getY() < this.groundY ? GROUND : AIR;
+    }
+
+    /**
+     * Every block written since the last reset, keyed by BlockPos.asLong
+     */
+    public Long2ObjectMap<BlockState> blocks() {
+        return Long2ObjectMaps.unmodifiable(this.blocks);
+    }
+
+    public int probes() {
+        return this.probes;
+    }
+
+    public int writes() {
+        return this.writes;
+    }
+
+    @Override
+    public boolean isStateAtPosition(BlockPos pPos, Predicate<BlockState> pState) {
+        this.probes++;
+        return pState.test(getBlockState(pPos));
+    }
+
+    @Override
+    public boolean isFluidAtPosition(BlockPos pPos, Predicate<FluidState> pPredicate) {
+        this.probes++;
+        return pPredicate.test(getBlockState(pPos).getFluidState());
+    }
+
+    @Override
+    public <T extends BlockEntity> Optional<T> getBlockEntity(BlockPos pPos, BlockEntityType<T> pBlockEntityType) {
+        return Optional.empty();
+    }
+
+    @Override
+    public BlockPos getHeightmapPos(Heightmap.Types pHeightmapType, BlockPos pPos) {
+        return new BlockPos(pPos.getX(), this.groundY, pPos.getZ());
+    }
+
+    @Override
+    public void accept(BlockPos pPos, BlockState pState) {
+        this.writes++;
+        this.blocks.put(pPos.asLong(), pState);
+    }
+
+    @Override
+    public void set(BlockPos pPos, BlockState pState) {
+        accept(pPos, pState);
+    }
+
+    @Override
+    public boolean isSet(BlockPos pPos) {
+        return this.blocks.containsKey(pPos.asLong());
+    }
+}
@@ -3,6 +3,7 @@ package net.jeffd76.ebonytrees;
 import com.mojang.logging.LogUtils;
 import net.jeffd76.ebonytrees.block.ModBlocks;
 import net.jeffd76.ebonytrees.block.entity.ModBlockEntities;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
 import net.jeffd76.ebonytrees.entity.ModEntities;
 import net.jeffd76.ebonytrees.entity.client.ModBoatRenderer;
 import net.jeffd76.ebonytrees.item.ModCreativeModeTabs;
@@ -10,6 +11,8 @@ import net.jeffd76.ebonytrees.item.ModItems;
 import net.jeffd76.ebonytrees.loot.ModLootModifiers;
 import net.jeffd76.ebonytrees.recipe.ModRecipes;
 import net.jeffd76.ebonytrees.util.ModWoodTypes;
+import net.jeffd76.ebonytrees.worldgen.feature.ModFeatures;
+import net.jeffd76.ebonytrees.worldgen.placement.ModPlacementModifiers;
 import net.jeffd76.ebonytrees.worldgen.tree.ModFoliagePlacers;
 import net.jeffd76.ebonytrees.worldgen.tree.ModTrunkPlacerTypes;
 import net.minecraft.client.renderer.Sheets;
@@ -21,7 +24,9 @@ import net.minecraftforge.event.BuildCreativeModeTabContentsEvent;
 import net.minecraftforge.event.server.ServerStartingEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
@@ -53,12 +58,15 @@ public class EbonyTrees {
         ModTrunkPlacerTypes.register(modEventBus);
 
         ModFoliagePlacers.register(modEventBus);
+        ModFeatures.register(modEventBus);
+        ModPlacementModifiers.register(modEventBus);
 
         modEventBus.addListener(this::commonSetup);
 
         MinecraftForge.EVENT_BUS.register(this);
         modEventBus.addListener(this::addCreative);
 
+        ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, ModCommonConfigs.SPEC, "ebonytrees-common.toml");
     }
 
     private void commonSetup(final FMLCommonSetupEvent event) {
@@ -0,0 +1,63 @@
+package net.jeffd76.ebonytrees.block.custom;
+
+import net.jeffd76.ebonytrees.block.decay.LeafDecayScheduler;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Ebony leaves. When a leaf loses its support it doesn't walk the new distance through the canopy one scheduled tick
+ * at a time; it hands its position to the LeafDecayScheduler, which settles the whole area in one pass and removes
+ * the orphaned leaves at a fixed budget per tick.
+ */
+public class EbonyLeavesBlock extends LeavesBlock {
+    public EbonyLeavesBlock(Properties pProperties) {
+        super(pProperties);
+    }
+
+    @Override
+    public void tick(BlockState pState, ServerLevel pLevel, BlockPos pPos, RandomSource pRandom) {
+        if (supportDistance(pLevel, pPos) > pState.getValue(DISTANCE)) {
+            LeafDecayScheduler.get(pLevel).enqueue(pPos);
+            return;
+        }
+
+        super.tick(pState, pLevel, pPos, pRandom);
+    }
+
+    /**
+     * Distance this leaf would have from its current neighbours, as LeavesBlock computes it
+     */
+    private static int supportDistance(LevelAccessor pLevel, BlockPos pPos) {
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        int distance = DECAY_DISTANCE;
+
+        for (Direction direction : Direction.values()) {
+            cursor.setWithOffset(pPos, direction);
+            distance = Math.min(distance, getOptionalDistanceAt(pLevel.getBlockState(cursor)).orElse(DECAY_DISTANCE) + 1);
+            if (distance == 1) break;
+        }
+
+        return distance;
+    }
+
+    @Override
+    public boolean isFlammable(BlockState state, BlockGetter level, BlockPos pos, Direction direction) {
+        return true;
+    }
+
+    @Override
+    public int getFlammability(BlockState state, BlockGetter level, BlockPos pos, Direction direction) {
+        return 60;
+    }
+
+    @Override
+    public int getFireSpreadSpeed(BlockState state, BlockGetter level, BlockPos pos, Direction direction) {
+        return 30;
+    }
+}
@@ -0,0 +1,23 @@
+package net.jeffd76.ebonytrees.block.custom;
+
+import net.jeffd76.ebonytrees.block.growth.SaplingGrowthScheduler;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.SaplingBlock;
+import net.minecraft.world.level.block.grower.AbstractTreeGrower;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * Ebony sapling. While its tree is being written out by the SaplingGrowthScheduler it no longer takes bone meal.
+ */
+public class EbonySaplingBlock extends SaplingBlock {
+    public EbonySaplingBlock(AbstractTreeGrower pTreeGrower, Properties pProperties) {
+        super(pTreeGrower, pProperties);
+    }
+
+    @Override
+    public boolean isValidBonemealTarget(LevelReader pLevel, BlockPos pPos, BlockState pState, boolean pIsClient) {
+        return !(pLevel instanceof ServerLevel serverLevel && SaplingGrowthScheduler.isPending(serverLevel, pPos));
+    }
+}
@@ -1,14 +1,21 @@
 package net.jeffd76.ebonytrees.block.custom;
 
 import net.jeffd76.ebonytrees.block.ModBlocks;
+import net.jeffd76.ebonytrees.block.felling.TreeFellingQueue;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.AxeItem;
+import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.context.UseOnContext;
 import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.RotatedPillarBlock;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraftforge.common.ToolAction;
+import net.minecraftforge.common.ToolActions;
 import org.jetbrains.annotations.Nullable;
 
 public class ModFlammableRotatedPillarBlock extends RotatedPillarBlock {
@@ -45,4 +52,16 @@ public class ModFlammableRotatedPillarBlock extends RotatedPillarBlock {
 
         return super.getToolModifiedState(state, context,toolAction, simulate);
     }
+
+    @Override
+    public void playerDestroy(Level pLevel, Player pPlayer, BlockPos pPos, BlockState pState, @Nullable BlockEntity pBlockEntity, ItemStack pTool) {
+        super.playerDestroy(pLevel, pPlayer, pPos, pState, pBlockEntity, pTool);
+
+        // Cutting the base of a natural ebony trunk with an axe fells the whole tree, sneak to cut a single log
+        if (pLevel instanceof ServerLevel serverLevel && !pPlayer.isShiftKeyDown() &&
+                pTool.canPerformAction(ToolActions.AXE_DIG) && pState.is(ModBlocks.EBONY_LOG.get()) &&
+                TreeFellingQueue.isTreeBase(serverLevel, pPos)) {
+            TreeFellingQueue.fell(serverLevel, pPos);
+        }
+    }
 }
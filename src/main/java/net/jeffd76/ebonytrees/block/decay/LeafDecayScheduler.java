@@ -0,0 +1,277 @@
+package net.jeffd76.ebonytrees.block.decay;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.jeffd76.ebonytrees.block.custom.EbonyLeavesBlock;
+import net.jeffd76.ebonytrees.block.growth.BlockedSaplingCache;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.WeakHashMap;
+
+/**
+ * Per-level batch decay for ebony leaves. Leaves that lost support are collected per chunk section; each tick a few
+ * sections are settled with one bounded breadth-first pass that recomputes DISTANCE for every connected leaf around
+ * them, and the leaves left at the decay distance are dropped and removed at a configurable budget per tick.
+ * <p>
+ * Distances are written without neighbour shape updates, so clearing a trunk doesn't set off a tick-by-tick cascade
+ * through the canopy. The queue itself only lives in memory, so every queued leaf also gets a scheduled block tick a
+ * few seconds out. Those are saved with the chunk; if the queue was lost to a restart or unload, or the leaf had to be
+ * deferred, that tick finds the stale distance and queues the leaf again.
+ */
+public class LeafDecayScheduler {
+    private static final Map<ServerLevel, LeafDecayScheduler> SCHEDULERS = new WeakHashMap<>();
+
+    // Leaves further than this from a section can't change distance because of it
+    private static final int REGION_MARGIN = LeavesBlock.DECAY_DISTANCE;
+
+    // Upper bound on the leaves visited when settling one section
+    private static final int MAX_REGION_SIZE = 16384;
+
+    // Ticks until a queued leaf checks its own distance again, in case the scheduler never got to it
+    private static final int FALLBACK_TICK_DELAY = 60;
+
+    private static final int SET_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final ServerLevel level;
+    private final Long2ObjectLinkedOpenHashMap<LongOpenHashSet> seedsBySection = new Long2ObjectLinkedOpenHashMap<>();
+    private final LongLinkedOpenHashSet removals = new LongLinkedOpenHashSet();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+    private LeafDecayScheduler(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the scheduler for the level, creating it on first use
+     */
+    public static LeafDecayScheduler get(ServerLevel pLevel) {
+        return SCHEDULERS.computeIfAbsent(pLevel, LeafDecayScheduler::new);
+    }
+
+    /**
+     * Runs one tick of the level's scheduler, if it has one
+     */
+    public static void tick(ServerLevel pLevel) {
+        LeafDecayScheduler scheduler = SCHEDULERS.get(pLevel);
+        if (scheduler != null) {
+            scheduler.tick();
+        }
+    }
+
+    public static void remove(ServerLevel pLevel) {
+        SCHEDULERS.remove(pLevel);
+    }
+
+    /**
+     * Leaves waiting to be settled or removed, across every level
+     */
+    public static int totalQueueDepth() {
+        int depth = 0;
+        for (LeafDecayScheduler scheduler : SCHEDULERS.values()) {
+            depth += scheduler.queueDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * Marks a leaf whose support changed. Its section is settled on a following tick, and a fallback block tick is
+     * scheduled on the leaf.
+     */
+    public void enqueue(BlockPos pPos) {
+        this.seedsBySection.computeIfAbsent(SectionPos.asLong(pPos), key -> new LongOpenHashSet()).add(pPos.asLong());
+        scheduleFallback(pPos);
+    }
+
+    private void scheduleFallback(BlockPos pPos) {
+        BlockState state = this.level.getBlockState(pPos);
+        if (isEbonyLeaf(state)) {
+            this.level.scheduleTick(pPos.immutable(), state.getBlock(), FALLBACK_TICK_DELAY);
+        }
+    }
+
+    /**
+     * Leaves waiting to be settled or removed in this level
+     */
+    public int queueDepth() {
+        int depth = this.removals.size();
+        for (LongOpenHashSet seeds : this.seedsBySection.values()) {
+            depth += seeds.size();
+        }
+        return depth;
+    }
+
+    private void tick() {
+        int sections = ModCommonConfigs.LEAF_DECAY_SECTIONS_PER_TICK.get();
+        while (sections-- > 0 && !this.seedsBySection.isEmpty()) {
+            long section = this.seedsBySection.firstLongKey();
+            settleSection(section, this.seedsBySection.removeFirst());
+        }
+
+        int budget = ModCommonConfigs.LEAF_DECAY_BUDGET.get();
+        while (budget > 0 && !this.removals.isEmpty()) {
+            BlockPos pos = BlockPos.of(this.removals.removeFirstLong());
+            if (!this.level.isLoaded(pos)) continue;
+
+            // Same as LeavesBlock.randomTick, provided nothing reconnected the leaf in the meantime
+            BlockState state = this.level.getBlockState(pos);
+            if (isEbonyLeaf(state) && !state.getValue(LeavesBlock.PERSISTENT) &&
+                    state.getValue(LeavesBlock.DISTANCE) == LeavesBlock.DECAY_DISTANCE) {
+                Block.dropResources(state, this.level, pos);
+                this.level.removeBlock(pos, false);
+                budget--;
+            }
+        }
+    }
+
+    /**
+     * Recomputes DISTANCE for the ebony leaves connected to the seeds, within the section grown by REGION_MARGIN.
+     * Logs and leaves outside that region act as fixed sources; leaves left at the decay distance are queued for
+     * removal.
+     * <p>
+     * If the region hits MAX_REGION_SIZE, the leaves still waiting to be expanded are queued again so the leaves
+     * behind them get settled on a later tick. A leaf next to an unloaded chunk can't know its support, so it keeps
+     * at most its current distance, is never removed, and is left to its fallback tick.
+     */
+    private void settleSection(long pSection, LongOpenHashSet pSeeds) {
+        int minX = SectionPos.sectionToBlockCoord(SectionPos.x(pSection)) - REGION_MARGIN;
+        int minY = SectionPos.sectionToBlockCoord(SectionPos.y(pSection)) - REGION_MARGIN;
+        int minZ = SectionPos.sectionToBlockCoord(SectionPos.z(pSection)) - REGION_MARGIN;
+        int extent = SectionPos.SECTION_SIZE + REGION_MARGIN * 2;
+
+        // Gather the connected leaves inside the region
+        LongOpenHashSet region = new LongOpenHashSet();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        LongIterator seeds = pSeeds.iterator();
+        while (seeds.hasNext()) {
+            long seed = seeds.nextLong();
+            if (isEbonyLeaf(stateAt(seed)) && region.add(seed)) {
+                queue.enqueue(seed);
+            }
+        }
+
+        while (!queue.isEmpty() && region.size() < MAX_REGION_SIZE) {
+            long pos = queue.dequeueLong();
+            for (Direction direction : DIRECTIONS) {
+                long neighbour = BlockPos.offset(pos, direction);
+                if (inRegion(neighbour, minX, minY, minZ, extent) && !region.contains(neighbour) &&
+                        isEbonyLeaf(stateAt(neighbour))) {
+                    region.add(neighbour);
+                    queue.enqueue(neighbour);
+                }
+            }
+        }
+
+        // Truncated: the unexpanded frontier borders leaves that weren't gathered, settle it again later
+        while (!queue.isEmpty()) {
+            enqueue(BlockPos.of(queue.dequeueLong()));
+        }
+
+        // Starting distances come from whatever borders the region: logs, and leaves that weren't gathered
+        Long2IntOpenHashMap distances = new Long2IntOpenHashMap(region.size());
+        LongOpenHashSet deferred = new LongOpenHashSet();
+        LongArrayList[] layers = new LongArrayList[LeavesBlock.DECAY_DISTANCE + 1];
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = new LongArrayList();
+        }
+
+        LongIterator positions = region.iterator();
+        while (positions.hasNext()) {
+            long pos = positions.nextLong();
+            int distance = LeavesBlock.DECAY_DISTANCE;
+
+            for (Direction direction : DIRECTIONS) {
+                long neighbour = BlockPos.offset(pos, direction);
+                if (region.contains(neighbour)) continue;
+
+                BlockState state = stateAt(neighbour);
+                if (state == null) {
+                    deferred.add(pos);
+                    continue;
+                }
+
+                OptionalInt neighbourDistance = LeavesBlock.getOptionalDistanceAt(state);
+                if (neighbourDistance.isPresent()) {
+                    distance = Math.min(distance, neighbourDistance.getAsInt() + 1);
+                }
+            }
+
+            // Support may be on the unloaded side, so this leaf can only get closer to a log
+            if (deferred.contains(pos)) {
+                distance = Math.min(distance, stateAt(pos).getValue(LeavesBlock.DISTANCE));
+            }
+
+            distances.put(pos, distance);
+            layers[distance].add(pos);
+        }
+
+        // Relax layer by layer through the region
+        for (int distance = 1; distance < LeavesBlock.DECAY_DISTANCE; distance++) {
+            LongArrayList layer = layers[distance];
+            for (int i = 0; i < layer.size(); i++) {
+                long pos = layer.getLong(i);
+                if (distances.get(pos) != distance) continue;
+
+                for (Direction direction : DIRECTIONS) {
+                    long neighbour = BlockPos.offset(pos, direction);
+                    if (region.contains(neighbour) && distances.get(neighbour) > distance + 1) {
+                        distances.put(neighbour, distance + 1);
+                        layers[distance + 1].add(neighbour);
+                    }
+                }
+            }
+        }
+
+        // Write the settled distances in one go, without notifying neighbours
+        positions = region.iterator();
+        while (positions.hasNext()) {
+            long pos = positions.nextLong();
+            int distance = distances.get(pos);
+            BlockState state = this.level.getBlockState(this.cursor.set(pos));
+
+            if (state.getValue(LeavesBlock.DISTANCE) != distance) {
+                this.level.setBlock(this.cursor, state.setValue(LeavesBlock.DISTANCE, distance), SET_FLAGS);
+                BlockedSaplingCache.onBlockChanged(this.level, this.cursor);
+            }
+
+            if (deferred.contains(pos)) {
+                scheduleFallback(this.cursor);
+            } else if (distance == LeavesBlock.DECAY_DISTANCE && !state.getValue(LeavesBlock.PERSISTENT)) {
+                this.removals.add(pos);
+            }
+        }
+    }
+
+    /**
+     * State at the position, or null if its chunk isn't loaded
+     */
+    private BlockState stateAt(long pPos) {
+        this.cursor.set(pPos);
+        return this.level.isLoaded(this.cursor) ? this.level.getBlockState(this.cursor) : null;
+    }
+
+    private static boolean inRegion(long pPos, int pMinX, int pMinY, int pMinZ, int pExtent) {
+        int x = BlockPos.getX(pPos) - pMinX;
+        int y = BlockPos.getY(pPos) - pMinY;
+        int z = BlockPos.getZ(pPos) - pMinZ;
+        return x >= 0 && x < pExtent && y >= 0 && y < pExtent && z >= 0 && z < pExtent;
+    }
+
+    private static boolean isEbonyLeaf(BlockState pState) {
+        return pState != null && pState.getBlock() instanceof EbonyLeavesBlock;
+    }
+}
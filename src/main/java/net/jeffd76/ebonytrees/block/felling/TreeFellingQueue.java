@@ -0,0 +1,196 @@
+package net.jeffd76.ebonytrees.block.felling;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.jeffd76.ebonytrees.block.ModBlocks;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.saveddata.SavedData;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Logs waiting to be felled in one level. Felling a tree floods out from the cut log over the connected ebony logs
+ * and queues them; each tick removes a configured number, dropping their items. The queue lives in the level's saved
+ * data, so a restart part way through a tree carries on instead of leaving the rest floating.
+ * <p>
+ * Only plain ebony logs are followed, and only when they carry natural (non-persistent) ebony leaves, so builds made
+ * of ebony logs, wood or stripped logs are never felled.
+ */
+public class TreeFellingQueue extends SavedData {
+    private static final String DATA_NAME = "ebonytrees_tree_felling";
+    private static final String PENDING_TAG = "pending";
+
+    // Logs further out than this from the cut are left alone, so touching canopies don't fell the next tree
+    private static final int MAX_RADIUS = 12;
+
+    // Natural leaves the connected logs need before they count as a tree, so a stray leaf against a build doesn't
+    private static final int MIN_TREE_LEAVES = 4;
+
+    private final LongLinkedOpenHashSet pending = new LongLinkedOpenHashSet();
+
+    private TreeFellingQueue() {
+    }
+
+    public static TreeFellingQueue get(ServerLevel pLevel) {
+        return pLevel.getDataStorage().computeIfAbsent(TreeFellingQueue::load, TreeFellingQueue::new, DATA_NAME);
+    }
+
+    /**
+     * Returns the level's queue if a tree was ever felled there, without creating one
+     */
+    @Nullable
+    public static TreeFellingQueue getIfPresent(ServerLevel pLevel) {
+        return pLevel.getDataStorage().get(TreeFellingQueue::load, DATA_NAME);
+    }
+
+    private static TreeFellingQueue load(CompoundTag pTag) {
+        TreeFellingQueue queue = new TreeFellingQueue();
+        for (long pos : pTag.getLongArray(PENDING_TAG)) {
+            queue.pending.add(pos);
+        }
+        return queue;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag pTag) {
+        pTag.putLongArray(PENDING_TAG, this.pending.toLongArray());
+        return pTag;
+    }
+
+    /**
+     * True if the log just broken at the position was the base of a trunk: there is trunk above it, and below it is
+     * either not a log or a buried root of a generated tree
+     */
+    public static boolean isTreeBase(Level pLevel, BlockPos pPos) {
+        if (!isEbonyLog(pLevel.getBlockState(pPos.above()))) return false;
+
+        BlockPos below = pPos.below();
+        if (!isEbonyLog(pLevel.getBlockState(below))) return true;
+
+        // A log with open space beside it is trunk, not root
+        for (Direction direction : Direction.Plane.HORIZONTAL) {
+            if (pLevel.getBlockState(below.relative(direction)).canBeReplaced()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queues every ebony log connected to the cut, including diagonally, down to the cut's height. Nothing is queued
+     * unless the logs carry at least MIN_TREE_LEAVES natural ebony leaves, and the level's queue is only created
+     * once there is a tree to fell. Returns whether the tree was queued.
+     */
+    public static boolean fell(ServerLevel pLevel, BlockPos pCut) {
+        int maxLogs = ModCommonConfigs.FELLING_MAX_LOGS.get();
+        LongLinkedOpenHashSet found = new LongLinkedOpenHashSet();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        queue.enqueue(pCut.asLong());
+
+        while (!queue.isEmpty() && found.size() < maxLogs) {
+            long pos = queue.dequeueLong();
+
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        long neighbour = BlockPos.offset(pos, dx, dy, dz);
+                        cursor.set(neighbour);
+
+                        // Roots below the cut stay in the ground
+                        if (cursor.getY() < pCut.getY() || Math.abs(cursor.getX() - pCut.getX()) > MAX_RADIUS ||
+                                Math.abs(cursor.getZ() - pCut.getZ()) > MAX_RADIUS || found.contains(neighbour)) {
+                            continue;
+                        }
+
+                        if (pLevel.isLoaded(cursor) && isEbonyLog(pLevel.getBlockState(cursor)) &&
+                                found.size() < maxLogs) {
+                            found.add(neighbour);
+                            queue.enqueue(neighbour);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!hasNaturalLeaves(pLevel, found)) {
+            return false;
+        }
+
+        TreeFellingQueue fellingQueue = get(pLevel);
+        if (fellingQueue.pending.addAll(found)) {
+            fellingQueue.setDirty();
+        }
+        return true;
+    }
+
+    /**
+     * True if at least MIN_TREE_LEAVES non-persistent ebony leaves touch the logs, like vanilla leaves need a log
+     * within reach to survive
+     */
+    private static boolean hasNaturalLeaves(ServerLevel pLevel, LongLinkedOpenHashSet pLogs) {
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        int leaves = 0;
+
+        LongIterator logs = pLogs.iterator();
+        while (logs.hasNext()) {
+            long log = logs.nextLong();
+            for (Direction direction : Direction.values()) {
+                cursor.set(BlockPos.offset(log, direction));
+                if (!pLevel.isLoaded(cursor)) continue;
+
+                BlockState state = pLevel.getBlockState(cursor);
+                if (state.is(ModBlocks.EBONY_LEAVES.get()) && !state.getValue(LeavesBlock.PERSISTENT) &&
+                        ++leaves >= MIN_TREE_LEAVES) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEbonyLog(BlockState pState) {
+        return pState.is(ModBlocks.EBONY_LOG.get());
+    }
+
+    /**
+     * Removes up to the configured number of queued logs. Logs in unloaded chunks go to the back of the queue, which
+     * only reorders it, so the saved data is marked dirty only when a log actually left the queue.
+     */
+    public void tick(ServerLevel pLevel) {
+        if (this.pending.isEmpty()) return;
+
+        boolean changed = false;
+        int budget = Math.min(ModCommonConfigs.FELLING_BUDGET.get(), this.pending.size());
+        for (int i = 0; i < budget; i++) {
+            long pos = this.pending.removeFirstLong();
+            BlockPos blockPos = BlockPos.of(pos);
+
+            if (!pLevel.isLoaded(blockPos)) {
+                this.pending.add(pos);
+                continue;
+            }
+
+            changed = true;
+            if (isEbonyLog(pLevel.getBlockState(blockPos))) {
+                pLevel.destroyBlock(blockPos, true);
+            }
+        }
+
+        if (changed) {
+            setDirty();
+        }
+    }
+
+    /**
+     * Logs still waiting to be felled
+     */
+    public int size() {
+        return this.pending.size();
+    }
+}
@@ -0,0 +1,139 @@
+package net.jeffd76.ebonytrees.block.growth;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.TreeShapeBuffer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.LevelAccessor;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Per-level cache of ebony saplings whose last growth attempt found no room. A cached sapling doesn't try again
+ * until a block changes in one of the chunk sections its tree could cover, or the entry expires, so a blocked
+ * sapling costs one lookup per random tick or bone meal instead of a full tree attempt.
+ * <p>
+ * Changes are picked up from neighbour notifications, and from the mod's own writes that skip them: sapling trees
+ * being written out, leaf distance rewrites, and ebony trees placed straight into a ServerLevel. World generation
+ * writes into a WorldGenRegion off the server thread and only reaches the cache through expiry, which is harmless as
+ * it only ever adds blocks and so can't free room a cached sapling is waiting for.
+ */
+public class BlockedSaplingCache {
+    private static final Map<ServerLevel, BlockedSaplingCache> CACHES = new WeakHashMap<>();
+
+    private final ServerLevel level;
+    private final Long2LongOpenHashMap expiries = new Long2LongOpenHashMap();
+    private final Long2ObjectOpenHashMap<LongSet> saplingsBySection = new Long2ObjectOpenHashMap<>();
+
+    private BlockedSaplingCache(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the cache for the level, creating it on first use
+     */
+    public static BlockedSaplingCache get(ServerLevel pLevel) {
+        return CACHES.computeIfAbsent(pLevel, BlockedSaplingCache::new);
+    }
+
+    public static void remove(ServerLevel pLevel) {
+        CACHES.remove(pLevel);
+    }
+
+    /**
+     * Forgets every sapling whose footprint covers the changed block's section
+     */
+    public static void onBlockChanged(ServerLevel pLevel, BlockPos pPos) {
+        BlockedSaplingCache cache = CACHES.get(pLevel);
+        if (cache == null || cache.saplingsBySection.isEmpty()) return;
+
+        LongSet saplings = cache.saplingsBySection.remove(SectionPos.asLong(pPos));
+        if (saplings != null) {
+            LongIterator iterator = saplings.iterator();
+            while (iterator.hasNext()) {
+                cache.forget(iterator.nextLong());
+            }
+        }
+    }
+
+    /**
+     * onBlockChanged for writes made without neighbour notifications. Ignores levels other than a ServerLevel, such as
+     * a WorldGenRegion.
+     */
+    public static void onBlockWritten(LevelAccessor pLevel, BlockPos pPos) {
+        if (pLevel instanceof ServerLevel serverLevel) {
+            onBlockChanged(serverLevel, pPos);
+        }
+    }
+
+    /**
+     * Whether the sapling at the position failed to grow and nothing around it has changed since
+     */
+    public boolean isBlocked(BlockPos pPos) {
+        long pos = pPos.asLong();
+        if (!this.expiries.containsKey(pos)) return false;
+
+        if (this.level.getGameTime() >= this.expiries.get(pos)) {
+            forget(pos);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records a failed growth attempt for the sapling at the position
+     */
+    public void markBlocked(BlockPos pPos) {
+        long pos = pPos.asLong();
+        this.expiries.put(pos, this.level.getGameTime() + ModCommonConfigs.BLOCKED_SAPLING_RETRY_TICKS.get());
+        forEachFootprintSection(pos, section ->
+                this.saplingsBySection.computeIfAbsent(section, key -> new LongOpenHashSet()).add(pos));
+    }
+
+    /**
+     * Number of saplings currently cached as blocked
+     */
+    public int size() {
+        return this.expiries.size();
+    }
+
+    private void forget(long pPos) {
+        if (!this.expiries.containsKey(pPos)) return;
+        this.expiries.remove(pPos);
+
+        forEachFootprintSection(pPos, section -> {
+            LongSet saplings = this.saplingsBySection.get(section);
+            if (saplings != null && saplings.remove(pPos) && saplings.isEmpty()) {
+                this.saplingsBySection.remove(section);
+            }
+        });
+    }
+
+    /**
+     * Visits every section the sapling's tree could touch, the same box TreeShapeBuffer holds
+     */
+    private static void forEachFootprintSection(long pPos, LongConsumer pAction) {
+        int x = BlockPos.getX(pPos);
+        int y = BlockPos.getY(pPos);
+        int z = BlockPos.getZ(pPos);
+
+        for (int sectionX = SectionPos.blockToSectionCoord(x - TreeShapeBuffer.HORIZONTAL_RADIUS);
+             sectionX <= SectionPos.blockToSectionCoord(x + TreeShapeBuffer.HORIZONTAL_RADIUS); sectionX++) {
+            for (int sectionZ = SectionPos.blockToSectionCoord(z - TreeShapeBuffer.HORIZONTAL_RADIUS);
+                 sectionZ <= SectionPos.blockToSectionCoord(z + TreeShapeBuffer.HORIZONTAL_RADIUS); sectionZ++) {
+                for (int sectionY = SectionPos.blockToSectionCoord(y - TreeShapeBuffer.DEPTH_BELOW);
+                     sectionY <= SectionPos.blockToSectionCoord(y + TreeShapeBuffer.HEIGHT_ABOVE); sectionY++) {
+                    pAction.accept(SectionPos.asLong(sectionX, sectionY, sectionZ));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package net.jeffd76.ebonytrees.block.growth;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.jeffd76.ebonytrees.EbonyTrees;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.jeffd76.ebonytrees.metrics.ModMetrics;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.LevelSnapshot;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.TreeShape;
+import net.minecraft.Util;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.feature.TreeFeature;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes grown ebony saplings out over several ticks. A sapling's tree is computed in one go when it grows, then
+ * queued here and written trunk first, canopy after, sharing one block budget per server tick between every pending
+ * tree in every level. The sapling stays in place until its trunk is written, and is marked pending so it can't grow
+ * a second time in the meantime.
+ * <p>
+ * With async growth on, the tree is computed on a worker thread from a LevelSnapshot of the sapling's
+ * neighbourhood instead. The finished shape is checked against the level on a later tick; if anything it needs has
+ * changed, it is thrown away and computed again from a fresh snapshot.
+ */
+public class SaplingGrowthScheduler {
+    private static final Deque<PendingTree> QUEUE = new ArrayDeque<>();
+    private static final List<ComputingTree> COMPUTING = new ArrayList<>();
+    private static final Map<ServerLevel, LongSet> PENDING = new WeakHashMap<>();
+
+    // Snapshots taken before giving up on a sapling whose surroundings keep changing
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Same flags EbonyTreeFeature writes with: leaves are final, so neighbours don't need to be told
+    private static final int SET_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+
+    private SaplingGrowthScheduler() {
+    }
+
+    /**
+     * Queues a computed tree for the sapling at the origin. The start time is when the sapling began growing, from
+     * System.nanoTime(), and is only used for the growth time metric.
+     */
+    public static void schedule(ServerLevel pLevel, BlockPos pOrigin, BlockState pSapling, TreeShape pShape, long pStartNanos) {
+        QUEUE.addLast(new PendingTree(pLevel, pOrigin.immutable(), pSapling, pShape, pStartNanos));
+        mark(pLevel, pOrigin);
+    }
+
+    /**
+     * Starts computing the tree for the sapling at the origin on a worker thread. The seed stands in for the
+     * sapling's random source, which can't leave the server thread.
+     */
+    public static void computeAsync(ServerLevel pLevel, BlockPos pOrigin, BlockState pSapling, EbonyTreeFeature pFeature,
+                                    TreeConfiguration pConfig, long pSeed) {
+        ComputingTree tree = new ComputingTree(pLevel, pOrigin.immutable(), pSapling, pFeature, pConfig, pSeed);
+        tree.submit();
+        COMPUTING.add(tree);
+        mark(pLevel, pOrigin);
+    }
+
+    /**
+     * Whether the sapling at the position already has a tree waiting to be written
+     */
+    public static boolean isPending(ServerLevel pLevel, BlockPos pPos) {
+        LongSet pending = PENDING.get(pLevel);
+        return pending != null && pending.contains(pPos.asLong());
+    }
+
+    /**
+     * Trees waiting to be written, across every level
+     */
+    public static int queueDepth() {
+        return QUEUE.size() + COMPUTING.size();
+    }
+
+    /**
+     * Writes up to the configured number of blocks, finishing the oldest tree before starting the next. Trees whose
+     * origin isn't loaded wait at the back of the queue.
+     */
+    public static void tick() {
+        collectComputed(false);
+
+        int budget = ModCommonConfigs.SAPLING_GROWTH_BUDGET.get();
+
+        for (int waiting = QUEUE.size(); waiting > 0 && budget > 0; waiting--) {
+            PendingTree tree = QUEUE.pollFirst();
+            if (!tree.level.isLoaded(tree.origin)) {
+                QUEUE.addLast(tree);
+                continue;
+            }
+
+            budget -= tree.write(budget);
+            if (!tree.isDone()) {
+                QUEUE.addFirst(tree);
+                return;
+            }
+            finish(tree);
+        }
+    }
+
+    /**
+     * Writes every pending tree in full, e.g. before the server saves on shutdown
+     */
+    public static void flushAll() {
+        collectComputed(true);
+
+        while (!QUEUE.isEmpty()) {
+            PendingTree tree = QUEUE.pollFirst();
+            tree.write(Integer.MAX_VALUE);
+            finish(tree);
+        }
+    }
+
+    /**
+     * Drops the pending trees of a level that is being unloaded
+     */
+    public static void remove(ServerLevel pLevel) {
+        QUEUE.removeIf(tree -> tree.level == pLevel);
+        COMPUTING.removeIf(tree -> tree.level == pLevel);
+        PENDING.remove(pLevel);
+    }
+
+    /**
+     * Moves finished computations into the write queue, or resubmits them if the level changed under them. When
+     * waiting, blocks on computations still running instead of leaving them for a later tick.
+     */
+    private static void collectComputed(boolean pWait) {
+        Iterator<ComputingTree> iterator = COMPUTING.iterator();
+        while (iterator.hasNext()) {
+            ComputingTree tree = iterator.next();
+            if (!pWait && !tree.future.isDone()) continue;
+
+            TreeShape shape;
+            try {
+                shape = tree.future.join();
+            } catch (RuntimeException e) {
+                EbonyTrees.LOGGER.error("Failed to compute ebony tree at {}", tree.origin, e);
+                shape = null;
+            }
+
+            // The sapling is gone, or there's no room for the tree
+            boolean saplingPresent = tree.level.getBlockState(tree.origin).is(tree.sapling.getBlock());
+            if (shape == null || !saplingPresent) {
+                if (shape == null && saplingPresent) {
+                    BlockedSaplingCache.get(tree.level).markBlocked(tree.origin);
+                }
+                iterator.remove();
+                unmark(tree.level, tree.origin);
+                continue;
+            }
+
+            if (fits(tree.level, tree.origin, shape, tree.config)) {
+                iterator.remove();
+                QUEUE.addLast(new PendingTree(tree.level, tree.origin, tree.sapling, shape, tree.startNanos));
+            } else if (!pWait && ++tree.attempts < MAX_ATTEMPTS) {
+                tree.submit();
+            } else {
+                iterator.remove();
+                unmark(tree.level, tree.origin);
+            }
+        }
+    }
+
+    /**
+     * Whether every block of the shape can still be written as it was computed, and the space the free height check
+     * needed around the trunk is still free. A block placed there since the snapshot, next to the trunk but not on
+     * one of the shape's cells, would have clipped or stopped the tree.
+     */
+    private static boolean fits(ServerLevel pLevel, BlockPos pOrigin, TreeShape pShape, TreeConfiguration pConfig) {
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        for (int i = 0; i < pShape.size(); i++) {
+            if (!canWrite(pLevel, pOrigin, pShape.pos(i, cursor))) {
+                return false;
+            }
+        }
+        return EbonyTreeFeature.isFreeAbove(pLevel, pOrigin, pShape.treeHeight(), pConfig);
+    }
+
+    /**
+     * The sapling itself and the ground under it are always overwritten; anywhere else has to still be free
+     */
+    private static boolean canWrite(ServerLevel pLevel, BlockPos pOrigin, BlockPos pPos) {
+        if (pPos.getX() == pOrigin.getX() && pPos.getZ() == pOrigin.getZ() && pPos.getY() <= pOrigin.getY()) {
+            return true;
+        }
+        return pLevel.isLoaded(pPos) && TreeFeature.validTreePos(pLevel, pPos);
+    }
+
+    private static void finish(PendingTree pTree) {
+        unmark(pTree.level, pTree.origin);
+
+        if (!pTree.dropped) {
+            ModMetrics.SAPLINGS_GROWN.increment();
+            ModMetrics.SAPLING_GROWTH_NANOS.record(System.nanoTime() - pTree.startNanos);
+        }
+    }
+
+    private static void mark(ServerLevel pLevel, BlockPos pOrigin) {
+        PENDING.computeIfAbsent(pLevel, level -> new LongOpenHashSet()).add(pOrigin.asLong());
+    }
+
+    private static void unmark(ServerLevel pLevel, BlockPos pOrigin) {
+        LongSet pending = PENDING.get(pLevel);
+        if (pending != null) {
+            pending.remove(pOrigin.asLong());
+        }
+    }
+
+    private static final class ComputingTree {
+        private final ServerLevel level;
+        private final BlockPos origin;
+        private final BlockState sapling;
+        private final EbonyTreeFeature feature;
+        private final TreeConfiguration config;
+        private final long seed;
+        private final long startNanos = System.nanoTime();
+        private CompletableFuture<TreeShape> future;
+        private int attempts;
+
+        private ComputingTree(ServerLevel level, BlockPos origin, BlockState sapling, EbonyTreeFeature feature,
+                              TreeConfiguration config, long seed) {
+            this.level = level;
+            this.origin = origin;
+            this.sapling = sapling;
+            this.feature = feature;
+            this.config = config;
+            this.seed = seed;
+        }
+
+        /**
+         * Snapshots the neighbourhood on this thread, with the sapling cleared as vanilla does, and computes the
+         * shape from it on the background executor
+         */
+        private void submit() {
+            LevelSnapshot snapshot = LevelSnapshot.capture(this.level, this.origin,
+                    this.level.getFluidState(this.origin).createLegacyBlock());
+            this.future = CompletableFuture.supplyAsync(() ->
+                    this.feature.computeShape(snapshot, RandomSource.create(this.seed), this.origin, this.config),
+                    Util.backgroundExecutor());
+        }
+    }
+
+    private static final class PendingTree {
+        private final ServerLevel level;
+        private final BlockPos origin;
+        private final BlockState sapling;
+        private final TreeShape shape;
+        private final long startNanos;
+        private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        private int next;
+        private boolean dropped;
+
+        private PendingTree(ServerLevel level, BlockPos origin, BlockState sapling, TreeShape shape, long startNanos) {
+            this.level = level;
+            this.origin = origin;
+            this.sapling = sapling;
+            this.shape = shape;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Writes up to budget blocks and returns how many were used. Blocks whose spot has since been taken are
+         * skipped, and the whole tree is dropped if the sapling was removed before its trunk started.
+         */
+        private int write(int pBudget) {
+            if (this.next == 0 && !this.level.getBlockState(this.origin).is(this.sapling.getBlock())) {
+                this.next = this.shape.size();
+                this.dropped = true;
+                return 0;
+            }
+
+            int end = (int) Math.min(this.shape.size(), (long) this.next + pBudget);
+            int used = end - this.next;
+
+            for (; this.next < end; this.next++) {
+                BlockPos pos = this.shape.pos(this.next, this.cursor);
+                if (canWrite(this.level, this.origin, pos)) {
+                    this.level.setBlock(pos, this.shape.state(this.next), SET_FLAGS);
+                    BlockedSaplingCache.onBlockChanged(this.level, pos);
+                }
+            }
+
+            return used;
+        }
+
+        private boolean isDone() {
+            return this.next >= this.shape.size();
+        }
+    }
+}
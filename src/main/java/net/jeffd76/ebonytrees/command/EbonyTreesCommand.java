@@ -0,0 +1,42 @@
+package net.jeffd76.ebonytrees.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+import net.jeffd76.ebonytrees.metrics.MetricsExporter;
+import net.jeffd76.ebonytrees.metrics.ModMetrics;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+
+/**
+ * /ebonytrees stats [reset|export]: shows, zeroes or writes out the mod's metrics
+ */
+public class EbonyTreesCommand {
+    public EbonyTreesCommand(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("ebonytrees").requires(source -> source.hasPermission(2))
+                .then(Commands.literal("stats")
+                        .executes(this::showStats)
+                        .then(Commands.literal("reset").executes(this::resetStats))
+                        .then(Commands.literal("export").executes(this::exportStats))));
+    }
+
+    private int showStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        for (String line : ModMetrics.METRICS.describe(source.getServer())) {
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return 1;
+    }
+
+    private int resetStats(CommandContext<CommandSourceStack> context) {
+        ModMetrics.reset();
+        context.getSource().sendSuccess(() -> Component.literal("Ebony tree metrics reset"), true);
+        return 1;
+    }
+
+    private int exportStats(CommandContext<CommandSourceStack> context) {
+        MetricsExporter.export(context.getSource().getServer());
+        context.getSource().sendSuccess(() -> Component.literal("Ebony tree metrics exported"), false);
+        return 1;
+    }
+}
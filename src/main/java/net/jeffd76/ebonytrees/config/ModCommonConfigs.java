@@ -0,0 +1,96 @@
+package net.jeffd76.ebonytrees.config;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+
+public class ModCommonConfigs {
+    public static final ForgeConfigSpec.Builder BUILDER = new ForgeConfigSpec.Builder();
+    public static final ForgeConfigSpec SPEC;
+
+    public static final ForgeConfigSpec.EnumValue<TreeGenerationMode> TREE_GENERATION_MODE;
+    public static final ForgeConfigSpec.IntValue TEMPLATE_VARIANTS;
+
+    public static final ForgeConfigSpec.IntValue LEAF_DECAY_BUDGET;
+    public static final ForgeConfigSpec.IntValue LEAF_DECAY_SECTIONS_PER_TICK;
+
+    public static final ForgeConfigSpec.IntValue FELLING_BUDGET;
+    public static final ForgeConfigSpec.IntValue FELLING_MAX_LOGS;
+
+    public static final ForgeConfigSpec.IntValue SAPLING_GROWTH_BUDGET;
+    public static final ForgeConfigSpec.BooleanValue ASYNC_SAPLING_GROWTH;
+    public static final ForgeConfigSpec.IntValue BLOCKED_SAPLING_RETRY_TICKS;
+
+    public static final ForgeConfigSpec.IntValue METRICS_EXPORT_INTERVAL;
+    public static final ForgeConfigSpec.EnumValue<MetricsExportFormat> METRICS_EXPORT_FORMAT;
+
+    static {
+        BUILDER.push("Ebony Tree Generation");
+
+        TREE_GENERATION_MODE = BUILDER.comment("How ebony trees are generated. PROCEDURAL runs the trunk and foliage placers for every tree,",
+                        "STAMPED places one of a set of pregenerated variants, rotated or mirrored at random")
+                .defineEnum("tree_generation_mode", TreeGenerationMode.PROCEDURAL);
+        TEMPLATE_VARIANTS = BUILDER.comment("Number of pregenerated variants per size class in STAMPED mode")
+                .defineInRange("template_variants", 16, 1, 256);
+
+        BUILDER.pop();
+
+        BUILDER.push("Leaf Decay");
+
+        LEAF_DECAY_BUDGET = BUILDER.comment("Most orphaned ebony leaves removed per tick in each dimension")
+                .defineInRange("leaf_decay_budget", 64, 1, 4096);
+        LEAF_DECAY_SECTIONS_PER_TICK = BUILDER.comment("Most chunk sections whose ebony leaf distances are recomputed per tick in each dimension")
+                .defineInRange("leaf_decay_sections_per_tick", 8, 1, 1024);
+
+        BUILDER.pop();
+
+        BUILDER.push("Tree Felling");
+
+        FELLING_BUDGET = BUILDER.comment("Most ebony logs removed per tick in each dimension when felling trees")
+                .defineInRange("felling_budget", 32, 1, 4096);
+        FELLING_MAX_LOGS = BUILDER.comment("Most logs a single felled tree can queue")
+                .defineInRange("felling_max_logs", 512, 1, 8192);
+
+        BUILDER.pop();
+
+        BUILDER.push("Sapling Growth");
+
+        SAPLING_GROWTH_BUDGET = BUILDER.comment("Most blocks of grown ebony saplings written per tick, shared by every pending tree")
+                .defineInRange("sapling_growth_budget", 256, 1, 65536);
+        ASYNC_SAPLING_GROWTH = BUILDER.comment("Compute grown ebony sapling trees on a worker thread from a copy of their surroundings")
+                .define("async_sapling_growth", true);
+        BLOCKED_SAPLING_RETRY_TICKS = BUILDER.comment("Ticks an ebony sapling that had no room waits before trying again, unless a block near it changes first")
+                .defineInRange("blocked_sapling_retry_ticks", 6000, 0, 1728000);
+
+        BUILDER.pop();
+
+        BUILDER.push("Metrics");
+
+        METRICS_EXPORT_INTERVAL = BUILDER.comment("Seconds between writes of the ebony tree metrics to a file in the server directory, 0 to turn the export off")
+                .defineInRange("metrics_export_interval", 0, 0, 86400);
+        METRICS_EXPORT_FORMAT = BUILDER.comment("Format of the metrics file. CSV appends rows to ebonytrees-metrics.csv,",
+                        "PROMETHEUS rewrites ebonytrees-metrics.prom in the text exposition format")
+                .defineEnum("metrics_export_format", MetricsExportFormat.PROMETHEUS);
+
+        BUILDER.pop();
+        SPEC = BUILDER.build();
+    }
+
+    public enum TreeGenerationMode {
+        PROCEDURAL,
+        STAMPED
+    }
+
+    public enum MetricsExportFormat {
+        CSV("ebonytrees-metrics.csv"),
+        PROMETHEUS("ebonytrees-metrics.prom");
+
+        private final String fileName;
+
+        MetricsExportFormat(String pFileName) {
+            this.fileName = pFileName;
+        }
+
+        public String fileName() {
+            return this.fileName;
+        }
+    }
+}
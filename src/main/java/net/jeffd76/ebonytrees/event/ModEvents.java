@@ -0,0 +1,110 @@
+package net.jeffd76.ebonytrees.event;
+
+import net.jeffd76.ebonytrees.EbonyTrees;
+import net.jeffd76.ebonytrees.block.decay.LeafDecayScheduler;
+import net.jeffd76.ebonytrees.block.felling.TreeFellingQueue;
+import net.jeffd76.ebonytrees.block.growth.BlockedSaplingCache;
+import net.jeffd76.ebonytrees.block.growth.SaplingGrowthScheduler;
+import net.jeffd76.ebonytrees.command.EbonyTreesCommand;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.jeffd76.ebonytrees.metrics.MetricsExporter;
+import net.jeffd76.ebonytrees.metrics.ModMetrics;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.EbonyTreeTemplates;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerAboutToStartEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+@Mod.EventBusSubscriber(modid = EbonyTrees.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class ModEvents {
+
+    @SubscribeEvent
+    public static void onServerAboutToStart(ServerAboutToStartEvent event) {
+        if (ModCommonConfigs.TREE_GENERATION_MODE.get() != ModCommonConfigs.TreeGenerationMode.STAMPED) return;
+
+        // Build the variant libraries up front so the first chunks don't pay for them
+        int variants = 0;
+        for (ConfiguredFeature<?, ?> feature : event.getServer().registryAccess().registryOrThrow(Registries.CONFIGURED_FEATURE)) {
+            if (feature.feature() instanceof EbonyTreeFeature ebonyTree && feature.config() instanceof TreeConfiguration config) {
+                variants += EbonyTreeTemplates.get(ebonyTree, config).size();
+            }
+        }
+
+        EbonyTrees.LOGGER.info("Pregenerated {} ebony tree variants", variants);
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        // Finish every half-grown tree before the levels are saved
+        SaplingGrowthScheduler.flushAll();
+
+        if (ModCommonConfigs.METRICS_EXPORT_INTERVAL.get() > 0) {
+            MetricsExporter.export(event.getServer());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        EbonyTreeTemplates.clear();
+
+        EbonyTrees.LOGGER.info("Ebony tree site filter accepted {} and rejected {} positions",
+                ModMetrics.SITES_ACCEPTED.sum(), ModMetrics.SITES_REJECTED.sum());
+
+        EbonyTrees.LOGGER.info("Ebony trees dropped {} writes and {} placement probes outside the writable region",
+                ModMetrics.CLIPPED_WRITES.sum(), ModMetrics.CLIPPED_PROBES.sum());
+        ModMetrics.reset();
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            SaplingGrowthScheduler.tick();
+            ModMetrics.tick(ServerLifecycleHooks.getCurrentServer());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onCommandsRegister(RegisterCommandsEvent event) {
+        new EbonyTreesCommand(event.getDispatcher());
+    }
+
+    @SubscribeEvent
+    public static void onLevelTick(TickEvent.LevelTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && event.level instanceof ServerLevel serverLevel) {
+            LeafDecayScheduler.tick(serverLevel);
+
+            // Levels where nothing was ever felled have no queue, and don't get an empty one saved
+            TreeFellingQueue fellingQueue = TreeFellingQueue.getIfPresent(serverLevel);
+            if (fellingQueue != null) {
+                fellingQueue.tick(serverLevel);
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            LeafDecayScheduler.remove(serverLevel);
+            SaplingGrowthScheduler.remove(serverLevel);
+            BlockedSaplingCache.remove(serverLevel);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            BlockedSaplingCache.onBlockChanged(serverLevel, event.getPos());
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package net.jeffd76.ebonytrees.gametest;
+
+import net.jeffd76.ebonytrees.EbonyTrees;
+import net.jeffd76.ebonytrees.block.ModBlocks;
+import net.jeffd76.ebonytrees.block.growth.SaplingGrowthScheduler;
+import net.jeffd76.ebonytrees.worldgen.ModConfiguredFeatures;
+import net.jeffd76.ebonytrees.worldgen.tree.EbonyTreeGrower;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.gametest.framework.GameTestGenerator;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.gametest.framework.TestFunction;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.SaplingBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
+import net.minecraft.world.level.levelgen.feature.Feature;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraftforge.gametest.GameTestHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Performance gate for the worldgen and sapling paths, run by the gameTestServer run configuration. Each tree test
+ * grows one ebony tree from a fixed seed on a flat platform and fails if it placed too many blocks or left leaves that
+ * decay afterwards. The timing test grows every seed over and over and fails if the ebony feature is slower than
+ * vanilla TreeFeature growing the same configuration.
+ */
+@GameTestHolder(EbonyTrees.MOD_ID)
+public class EbonyTreeGameTests {
+    private static final String PLATFORM = EbonyTrees.MOD_ID + ":tree_platform";
+    private static final long[] SEEDS = {1L, 42L, 1234L, 0x45626F6E79L};
+
+    // The platform is 21x44x21 with its grass top at y 5; trees are planted in the middle
+    private static final BlockPos ORIGIN = new BlockPos(10, 6, 10);
+    private static final int WIDTH = 21;
+    private static final int HEIGHT = 44;
+
+    // Regression bounds
+    private static final int MAX_BLOCKS = 4000;
+    private static final int MIN_BLOCKS = 50;
+    private static final double MAX_DECAYING_LEAF_FRACTION = 0.01;
+
+    // Ticks to let leaf decay run after a tree is finished, and to wait for a sapling's tree to be written
+    private static final int DECAY_TICKS = 100;
+    private static final int FEATURE_MAX_TICKS = DECAY_TICKS + 20;
+    private static final int SAPLING_MAX_TICKS = DECAY_TICKS + 400;
+
+    // Rounds over every seed that warm the JIT up, then rounds that are timed. The bound is a ratio to vanilla
+    // TreeFeature timed in the same loop, so it holds on any machine.
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int TIMED_ROUNDS = 20;
+    private static final double MAX_TIME_RATIO = 1.0;
+
+    @GameTestGenerator
+    public static List<TestFunction> generateTests() {
+        List<TestFunction> tests = new ArrayList<>();
+        for (long seed : SEEDS) {
+            String suffix = String.format(Locale.ROOT, "%x", seed);
+            tests.add(new TestFunction(EbonyTrees.MOD_ID, "ebonytreegametests.feature_" + suffix, PLATFORM,
+                    FEATURE_MAX_TICKS, 0, true, helper -> placeFeature(helper, seed)));
+            tests.add(new TestFunction(EbonyTrees.MOD_ID, "ebonytreegametests.sapling_" + suffix, PLATFORM,
+                    SAPLING_MAX_TICKS, 0, true, helper -> growSapling(helper, seed)));
+        }
+        tests.add(new TestFunction(EbonyTrees.MOD_ID, "ebonytreegametests.timing", PLATFORM,
+                20, 0, true, EbonyTreeGameTests::timeFeatures));
+        return tests;
+    }
+
+    /**
+     * Places the worldgen ebony tree feature directly, as chunk generation would
+     */
+    private static void placeFeature(GameTestHelper helper, long seed) {
+        ServerLevel level = helper.getLevel();
+        ConfiguredFeature<?, ?> feature = level.registryAccess().registryOrThrow(Registries.CONFIGURED_FEATURE)
+                .getOrThrow(ModConfiguredFeatures.EBONY_KEY);
+
+        if (!feature.place(level, level.getChunkSource().getGenerator(), RandomSource.create(seed), helper.absolutePos(ORIGIN))) {
+            helper.fail("Ebony tree feature wasn't placed for seed " + seed);
+        }
+
+        TreeCount grown = TreeCount.of(helper);
+        checkTree(helper, grown, seed);
+        helper.startSequence()
+                .thenIdle(DECAY_TICKS)
+                .thenExecute(() -> checkDecay(helper, grown, seed))
+                .thenSucceed();
+    }
+
+    /**
+     * Grows an ebony sapling the way a random tick or bone meal does, synchronously whatever the async growth config
+     * says, then waits for its tree to be written out
+     */
+    private static void growSapling(GameTestHelper helper, long seed) {
+        ServerLevel level = helper.getLevel();
+        BlockPos origin = helper.absolutePos(ORIGIN);
+        BlockState sapling = ModBlocks.EBONY_SAPLING.get().defaultBlockState().setValue(SaplingBlock.STAGE, 1);
+        helper.setBlock(ORIGIN, sapling);
+
+        if (!new EbonyTreeGrower().growTree(level, level.getChunkSource().getGenerator(), origin, sapling,
+                RandomSource.create(seed), false)) {
+            helper.fail("Ebony sapling didn't grow for seed " + seed);
+        }
+
+        TreeCount[] grown = new TreeCount[1];
+        helper.startSequence()
+                .thenWaitUntil(() -> {
+                    if (SaplingGrowthScheduler.isPending(level, origin)) {
+                        helper.fail("Ebony sapling tree is still being written");
+                    }
+                })
+                .thenExecute(() -> {
+                    grown[0] = TreeCount.of(helper);
+                    checkTree(helper, grown[0], seed);
+                })
+                .thenIdle(DECAY_TICKS)
+                .thenExecute(() -> checkDecay(helper, grown[0], seed))
+                .thenSucceed();
+    }
+
+    /**
+     * Times the worldgen and sapling configurations through the ebony feature and through vanilla TreeFeature, seed
+     * by seed in the same loop, restoring the platform after every tree. The sapling path computes the same shape as
+     * the feature and only defers the writes, so the feature stands in for both.
+     */
+    private static void timeFeatures(GameTestHelper helper) {
+        ServerLevel level = helper.getLevel();
+        ChunkGenerator generator = level.getChunkSource().getGenerator();
+        Registry<ConfiguredFeature<?, ?>> registry = level.registryAccess().registryOrThrow(Registries.CONFIGURED_FEATURE);
+        BlockPos origin = helper.absolutePos(ORIGIN);
+        Platform platform = Platform.of(helper);
+
+        for (ResourceKey<ConfiguredFeature<?, ?>> key : List.of(ModConfiguredFeatures.EBONY_KEY, ModConfiguredFeatures.EBONY_SAPLING_KEY)) {
+            ConfiguredFeature<?, ?> feature = registry.getOrThrow(key);
+            TreeConfiguration config = (TreeConfiguration) feature.config();
+            long ebonyNanos = 0;
+            long vanillaNanos = 0;
+
+            for (int round = 0; round < WARMUP_ROUNDS + TIMED_ROUNDS; round++) {
+                for (long seed : SEEDS) {
+                    long start = System.nanoTime();
+                    feature.place(level, generator, RandomSource.create(seed), origin);
+                    long ebony = System.nanoTime() - start;
+                    platform.restore(helper);
+
+                    start = System.nanoTime();
+                    Feature.TREE.place(config, level, generator, RandomSource.create(seed), origin);
+                    long vanilla = System.nanoTime() - start;
+                    platform.restore(helper);
+
+                    if (round >= WARMUP_ROUNDS) {
+                        ebonyNanos += ebony;
+                        vanillaNanos += vanilla;
+                    }
+                }
+            }
+
+            if (ebonyNanos > vanillaNanos * MAX_TIME_RATIO) {
+                double trees = TIMED_ROUNDS * SEEDS.length;
+                helper.fail(String.format(Locale.ROOT, "%s took %.3f ms per tree, vanilla TreeFeature %.3f ms, limit %.2fx",
+                        key.location(), ebonyNanos / trees / 1e6, vanillaNanos / trees / 1e6, MAX_TIME_RATIO));
+            }
+        }
+
+        helper.succeed();
+    }
+
+    private static void checkTree(GameTestHelper helper, TreeCount count, long seed) {
+        if (!helper.getBlockState(ORIGIN).is(BlockTags.LOGS)) {
+            helper.fail("No ebony trunk at the origin for seed " + seed);
+        }
+        if (count.blocks < MIN_BLOCKS || count.blocks > MAX_BLOCKS) {
+            helper.fail("Ebony tree placed " + count.blocks + " blocks for seed " + seed + ", expected " +
+                    MIN_BLOCKS + " to " + MAX_BLOCKS);
+        }
+        if (count.decaying > count.leaves * MAX_DECAYING_LEAF_FRACTION) {
+            helper.fail(count.decaying + " of " + count.leaves + " ebony leaves are out of reach of a log for seed " + seed);
+        }
+    }
+
+    private static void checkDecay(GameTestHelper helper, TreeCount grown, long seed) {
+        int lost = grown.leaves - TreeCount.of(helper).leaves;
+        if (lost > grown.leaves * MAX_DECAYING_LEAF_FRACTION) {
+            helper.fail(lost + " of " + grown.leaves + " ebony leaves decayed after growth for seed " + seed);
+        }
+    }
+
+    /**
+     * Every block of the test structure, so the timing test can put the platform back after each tree
+     */
+    private record Platform(BlockState[] states) {
+        // Leaves are removed without telling their neighbours, like they were written
+        private static final int RESTORE_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+
+        private static Platform of(GameTestHelper helper) {
+            BlockState[] states = new BlockState[WIDTH * HEIGHT * WIDTH];
+            BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+            for (int i = 0; i < states.length; i++) {
+                states[i] = helper.getBlockState(at(i, cursor));
+            }
+            return new Platform(states);
+        }
+
+        private void restore(GameTestHelper helper) {
+            BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+            for (int i = 0; i < this.states.length; i++) {
+                if (helper.getBlockState(at(i, cursor)) != this.states[i]) {
+                    helper.getLevel().setBlock(helper.absolutePos(cursor), this.states[i], RESTORE_FLAGS);
+                }
+            }
+        }
+
+        private static BlockPos.MutableBlockPos at(int pIndex, BlockPos.MutableBlockPos pCursor) {
+            return pCursor.set(pIndex % WIDTH, pIndex / (WIDTH * WIDTH), pIndex / WIDTH % WIDTH);
+        }
+    }
+
+    /**
+     * Blocks above the platform, leaves among them, and leaves that are far enough from a log to decay
+     */
+    private record TreeCount(int blocks, int leaves, int decaying) {
+        private static TreeCount of(GameTestHelper helper) {
+            int blocks = 0;
+            int leaves = 0;
+            int decaying = 0;
+            BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+            for (int y = ORIGIN.getY(); y < HEIGHT; y++) {
+                for (int z = 0; z < WIDTH; z++) {
+                    for (int x = 0; x < WIDTH; x++) {
+                        BlockState state = helper.getBlockState(cursor.set(x, y, z));
+                        if (state.isAir()) continue;
+
+                        blocks++;
+                        if (state.hasProperty(LeavesBlock.DISTANCE)) {
+                            leaves++;
+                            if (!state.getValue(LeavesBlock.PERSISTENT) &&
+                                    state.getValue(LeavesBlock.DISTANCE) >= LeavesBlock.DECAY_DISTANCE) {
+                                decaying++;
+                            }
+                        }
+                    }
+                }
+            }
+
+            return new TreeCount(blocks, leaves, decaying);
+        }
+    }
+}
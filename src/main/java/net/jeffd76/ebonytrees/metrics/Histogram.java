@@ -0,0 +1,97 @@
+package net.jeffd76.ebonytrees.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram in the style of HdrHistogram: values below 16 get a bucket each, larger values are split into
+ * 16 buckets per power of two, so any recorded value is reported within about 6%. Recording is lock-free and doesn't
+ * allocate, so it is safe on the worldgen threads.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value. Negative values are recorded as 0.
+     */
+    public void record(long pValue) {
+        long value = Math.max(0, pValue);
+        this.counts.incrementAndGet(bucketOf(value));
+        this.sum.add(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.counts.get(i);
+        }
+        return count;
+    }
+
+    public long sum() {
+        return this.sum.sum();
+    }
+
+    public long max() {
+        return this.max.get();
+    }
+
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) sum() / count;
+    }
+
+    /**
+     * Highest value of the bucket holding the given percentile (0-100), capped at the largest value recorded
+     */
+    public long percentile(double pPercentile) {
+        long count = count();
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(pPercentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.sum.reset();
+        this.max.set(0);
+    }
+
+    private static int bucketOf(long pValue) {
+        if (pValue < SUB_BUCKETS) {
+            return (int) pValue;
+        }
+
+        // The top bit selects the power of two, the next SUB_BUCKET_BITS bits the bucket within it
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(pValue) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (pValue >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long upperBound(int pBucket) {
+        if (pBucket < SUB_BUCKETS) {
+            return pBucket;
+        }
+
+        int shift = pBucket / SUB_BUCKETS - 1;
+        long top = (long) (SUB_BUCKETS + pBucket % SUB_BUCKETS + 1) << shift;
+        return top <= 0 ? Long.MAX_VALUE : top - 1;
+    }
+}
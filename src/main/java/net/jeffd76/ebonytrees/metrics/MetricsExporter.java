@@ -0,0 +1,68 @@
+package net.jeffd76.ebonytrees.metrics;
+
+import net.jeffd76.ebonytrees.EbonyTrees;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.minecraft.Util;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Periodically writes the metrics registry to a file in the server directory. CSV appends one batch of rows per
+ * export, Prometheus replaces the file each time so a node exporter's textfile collector can pick it up. The text
+ * is rendered on the server thread, where the gauges may be read, and written on the IO pool.
+ */
+public class MetricsExporter {
+    private static final String CSV_HEADER = "timestamp,metric,statistic,value\n";
+
+    private MetricsExporter() {
+    }
+
+    public static void tick(MinecraftServer pServer) {
+        int interval = ModCommonConfigs.METRICS_EXPORT_INTERVAL.get();
+        if (interval > 0 && pServer.getTickCount() % (interval * 20) == 0) {
+            export(pServer);
+        }
+    }
+
+    /**
+     * Writes the registry now in the configured format
+     */
+    public static void export(MinecraftServer pServer) {
+        ModCommonConfigs.MetricsExportFormat format = ModCommonConfigs.METRICS_EXPORT_FORMAT.get();
+        Path path = pServer.getFile(format.fileName()).toPath();
+
+        if (format == ModCommonConfigs.MetricsExportFormat.CSV) {
+            String rows = ModMetrics.METRICS.toCsv(pServer, System.currentTimeMillis());
+            Util.ioPool().execute(() -> appendCsv(path, rows));
+        } else {
+            String text = ModMetrics.METRICS.toPrometheus(pServer);
+            Util.ioPool().execute(() -> replace(path, text));
+        }
+    }
+
+    private static void appendCsv(Path pPath, String pRows) {
+        try {
+            String text = Files.exists(pPath) ? pRows : CSV_HEADER + pRows;
+            Files.writeString(pPath, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            EbonyTrees.LOGGER.warn("Failed to export ebony tree metrics to {}", pPath, e);
+        }
+    }
+
+    private static void replace(Path pPath, String pText) {
+        // Written beside the target and moved over it, so a scrape never sees half a file
+        Path temporary = pPath.resolveSibling(pPath.getFileName() + ".tmp");
+        try {
+            Files.writeString(temporary, pText, StandardCharsets.UTF_8);
+            Files.move(temporary, pPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            EbonyTrees.LOGGER.warn("Failed to export ebony tree metrics to {}", pPath, e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package net.jeffd76.ebonytrees.metrics;
+
+import net.minecraft.server.MinecraftServer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Named counters, histograms and gauges, listed in the order they were registered. Counters are LongAdders, so they
+ * stay cheap under contention; gauges are read from the server when the registry is reported, on the server thread.
+ */
+public class MetricsRegistry {
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final String prefix;
+    private final Map<String, LongAdder> counters = new LinkedHashMap<>();
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, ToLongFunction<MinecraftServer>> gauges = new LinkedHashMap<>();
+
+    public MetricsRegistry(String pPrefix) {
+        this.prefix = pPrefix;
+    }
+
+    public LongAdder counter(String pName) {
+        return this.counters.computeIfAbsent(pName, name -> new LongAdder());
+    }
+
+    public Histogram histogram(String pName) {
+        return this.histograms.computeIfAbsent(pName, name -> new Histogram());
+    }
+
+    public void gauge(String pName, ToLongFunction<MinecraftServer> pValue) {
+        this.gauges.put(pName, pValue);
+    }
+
+    /**
+     * Zeroes every counter and histogram. Gauges report live state and aren't affected.
+     */
+    public void reset() {
+        this.counters.values().forEach(LongAdder::reset);
+        this.histograms.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * One human readable line per metric, for the stats command
+     */
+    public List<String> describe(MinecraftServer pServer) {
+        List<String> lines = new ArrayList<>();
+        this.counters.forEach((name, counter) -> lines.add(name + ": " + counter.sum()));
+        this.gauges.forEach((name, gauge) -> lines.add(name + ": " + gauge.applyAsLong(pServer)));
+        this.histograms.forEach((name, histogram) -> lines.add(String.format(Locale.ROOT,
+                "%s: count %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d", name, histogram.count(), histogram.mean(),
+                histogram.percentile(50), histogram.percentile(90), histogram.percentile(99), histogram.max())));
+        return lines;
+    }
+
+    /**
+     * CSV rows of timestamp, metric, statistic and value, without a header
+     */
+    public String toCsv(MinecraftServer pServer, long pTimestamp) {
+        StringBuilder csv = new StringBuilder();
+        this.counters.forEach((name, counter) -> csvRow(csv, pTimestamp, name, "total", counter.sum()));
+        this.gauges.forEach((name, gauge) -> csvRow(csv, pTimestamp, name, "value", gauge.applyAsLong(pServer)));
+        this.histograms.forEach((name, histogram) -> {
+            csvRow(csv, pTimestamp, name, "count", histogram.count());
+            csvRow(csv, pTimestamp, name, "sum", histogram.sum());
+            for (double percentile : PERCENTILES) {
+                csvRow(csv, pTimestamp, name, "p" + (int) percentile, histogram.percentile(percentile));
+            }
+            csvRow(csv, pTimestamp, name, "max", histogram.max());
+        });
+        return csv.toString();
+    }
+
+    /**
+     * Prometheus text exposition format. Histograms are written as summaries, plus a separate max gauge.
+     */
+    public String toPrometheus(MinecraftServer pServer) {
+        StringBuilder text = new StringBuilder();
+        this.counters.forEach((name, counter) -> {
+            String metric = this.prefix + name + "_total";
+            text.append("# TYPE ").append(metric).append(" counter\n");
+            text.append(metric).append(' ').append(counter.sum()).append('\n');
+        });
+        this.gauges.forEach((name, gauge) -> {
+            String metric = this.prefix + name;
+            text.append("# TYPE ").append(metric).append(" gauge\n");
+            text.append(metric).append(' ').append(gauge.applyAsLong(pServer)).append('\n');
+        });
+        this.histograms.forEach((name, histogram) -> {
+            String metric = this.prefix + name;
+            text.append("# TYPE ").append(metric).append(" summary\n");
+            for (double percentile : PERCENTILES) {
+                text.append(metric).append("{quantile=\"").append(percentile / 100).append("\"} ")
+                        .append(histogram.percentile(percentile)).append('\n');
+            }
+            text.append(metric).append("_sum ").append(histogram.sum()).append('\n');
+            text.append(metric).append("_count ").append(histogram.count()).append('\n');
+            text.append("# TYPE ").append(metric).append("_max gauge\n");
+            text.append(metric).append("_max ").append(histogram.max()).append('\n');
+        });
+        return text.toString();
+    }
+
+    private static void csvRow(StringBuilder pCsv, long pTimestamp, String pMetric, String pStatistic, long pValue) {
+        pCsv.append(pTimestamp).append(',').append(pMetric).append(',').append(pStatistic).append(',').append(pValue).append('\n');
+    }
+}
@@ -0,0 +1,70 @@
+package net.jeffd76.ebonytrees.metrics;
+
+import net.jeffd76.ebonytrees.block.decay.LeafDecayScheduler;
+import net.jeffd76.ebonytrees.block.felling.TreeFellingQueue;
+import net.jeffd76.ebonytrees.block.growth.BlockedSaplingCache;
+import net.jeffd76.ebonytrees.block.growth.SaplingGrowthScheduler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class ModMetrics {
+    public static final MetricsRegistry METRICS = new MetricsRegistry("ebonytrees_");
+
+    // Ticks between samples of the queue depths that are recorded as histograms
+    private static final int SAMPLE_INTERVAL = 20;
+
+    public static final LongAdder TREES_GROWN = METRICS.counter("trees_grown");
+    public static final LongAdder TREES_REJECTED = METRICS.counter("trees_rejected");
+    public static final LongAdder TREES_STAMPED = METRICS.counter("trees_stamped");
+    public static final LongAdder SAPLINGS_GROWN = METRICS.counter("saplings_grown");
+    public static final LongAdder SITES_ACCEPTED = METRICS.counter("site_filter_accepted");
+    public static final LongAdder SITES_REJECTED = METRICS.counter("site_filter_rejected");
+    public static final LongAdder CLIPPED_WRITES = METRICS.counter("clipped_writes");
+    public static final LongAdder CLIPPED_PROBES = METRICS.counter("clipped_probes");
+
+    public static final Histogram TREE_GENERATION_NANOS = METRICS.histogram("tree_generation_nanos");
+    public static final Histogram BLOCKS_PER_TREE = METRICS.histogram("blocks_per_tree");
+    public static final Histogram LEVEL_PROBES_PER_TREE = METRICS.histogram("level_probes_per_tree");
+    public static final Histogram SAPLING_GROWTH_NANOS = METRICS.histogram("sapling_growth_nanos");
+    public static final Histogram LEAF_DECAY_QUEUE_DEPTH = METRICS.histogram("leaf_decay_queue_depth");
+
+    static {
+        METRICS.gauge("leaf_decay_queue", server -> LeafDecayScheduler.totalQueueDepth());
+        METRICS.gauge("tree_felling_queue", server -> {
+            long size = 0;
+            for (ServerLevel level : server.getAllLevels()) {
+                TreeFellingQueue queue = TreeFellingQueue.getIfPresent(level);
+                size += queue == null ? 0 : queue.size();
+            }
+            return size;
+        });
+        METRICS.gauge("sapling_growth_queue", server -> SaplingGrowthScheduler.queueDepth());
+        METRICS.gauge("blocked_saplings", server -> {
+            long size = 0;
+            for (ServerLevel level : server.getAllLevels()) {
+                size += BlockedSaplingCache.get(level).size();
+            }
+            return size;
+        });
+    }
+
+    /**
+     * Samples the queue depths once a second and runs the file exporter. Called at the end of every server tick.
+     */
+    public static void tick(MinecraftServer pServer) {
+        if (pServer.getTickCount() % SAMPLE_INTERVAL == 0) {
+            LEAF_DECAY_QUEUE_DEPTH.record(LeafDecayScheduler.totalQueueDepth());
+        }
+
+        MetricsExporter.tick(pServer);
+    }
+
+    /**
+     * Zeroes every counter and histogram
+     */
+    public static void reset() {
+        METRICS.reset();
+    }
+}
@@ -34,7 +34,7 @@ public class ModBiomeModifiers {
 
         context.register(ADD_TREE_EBONY_JUNGLE, new ForgeBiomeModifiers.AddFeaturesBiomeModifier(
                 HolderSet.direct(biomes.getOrThrow(Biomes.JUNGLE)),
-                HolderSet.direct(placedFeatures.getOrThrow(ModPlacedFeatures.EBONY_PLACED_KEY)),
+                HolderSet.direct(placedFeatures.getOrThrow(ModPlacedFeatures.EBONY_GROVE_PLACED_KEY)), // Whole chunk planned at once
                 GenerationStep.Decoration.VEGETAL_DECORATION));
 
         // Secondary biomes - Lower spawn rate (accent trees)
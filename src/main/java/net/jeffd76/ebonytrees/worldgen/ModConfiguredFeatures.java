@@ -2,13 +2,25 @@ package net.jeffd76.ebonytrees.worldgen;
 
 import net.jeffd76.ebonytrees.EbonyTrees;
 import net.jeffd76.ebonytrees.block.ModBlocks;
+import net.jeffd76.ebonytrees.worldgen.feature.ModFeatures;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyGroveConfiguration;
+import net.jeffd76.ebonytrees.worldgen.placement.custom.EbonyTreeSpacingPlacement;
 import net.jeffd76.ebonytrees.worldgen.tree.custom.EbonyFoliagePlacer;
 import net.jeffd76.ebonytrees.worldgen.tree.custom.EbonyTrunkPlacer;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.HolderSet;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.data.worldgen.BootstapContext;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.random.SimpleWeightedRandomList;
+import net.minecraft.util.valueproviders.ConstantInt;
+import net.minecraft.util.valueproviders.IntProvider;
 import net.minecraft.util.valueproviders.UniformInt;
+import net.minecraft.util.valueproviders.WeightedListInt;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
 import net.minecraft.world.level.levelgen.feature.Feature;
 import net.minecraft.world.level.levelgen.feature.configurations.FeatureConfiguration;
@@ -19,22 +31,55 @@ import net.minecraft.world.level.levelgen.feature.stateproviders.BlockStateProvi
 public class ModConfiguredFeatures {
 
     public static final ResourceKey<ConfiguredFeature<?, ?>> EBONY_KEY = registerKey("ebony");
+    public static final ResourceKey<ConfiguredFeature<?, ?>> EBONY_SAPLING_KEY = registerKey("ebony_sapling");
+    public static final ResourceKey<ConfiguredFeature<?, ?>> EBONY_GROVE_KEY = registerKey("ebony_grove");
 
     public static void bootstrap(BootstapContext<ConfiguredFeature<?, ?>> context) {
 
-        register(context, EBONY_KEY, Feature.TREE, new TreeConfiguration.TreeConfigurationBuilder(
-                BlockStateProvider.simple(ModBlocks.EBONY_LOG.get()),
-                new EbonyTrunkPlacer(12, 6, 4),
+        register(context, EBONY_KEY, ModFeatures.EBONY_TREE.get(), ebonyTree(EbonyTrunkPlacer.GenerationContext.WORLDGEN));
 
+        // Grown from saplings - no root system
+        register(context, EBONY_SAPLING_KEY, ModFeatures.EBONY_TREE.get(), ebonyTree(EbonyTrunkPlacer.GenerationContext.SAPLING));
 
-                BlockStateProvider.simple(ModBlocks.EBONY_LEAVES.get()),
+        // All of a chunk's world generation trees planned together, at most 2 or 5 like countExtra(2, 0.5f, 3), on the
+        // same spacing grid and site checks as ebony_placed so canopies stay apart across chunk borders. The biomes
+        // match the jungle biome modifier so no trunk lands in a neighbouring biome the chunk origin happened to miss.
+        HolderGetter<ConfiguredFeature<?, ?>> configuredFeatures = context.lookup(Registries.CONFIGURED_FEATURE);
+        HolderGetter<Biome> biomes = context.lookup(Registries.BIOME);
+        register(context, EBONY_GROVE_KEY, ModFeatures.EBONY_GROVE.get(), new EbonyGroveConfiguration(
+                configuredFeatures.getOrThrow(EBONY_KEY),
+                new WeightedListInt(SimpleWeightedRandomList.<IntProvider>builder()
+                        .add(ConstantInt.of(2), 1)
+                        .add(ConstantInt.of(5), 1)
+                        .build()),
+                new EbonyTreeSpacingPlacement(ModPlacedFeatures.TRUNK_SPACING, 1.0f, 0),
+                ModPlacedFeatures.siteFilter(),
+                ModBlocks.EBONY_SAPLING.get().defaultBlockState(),
+                HolderSet.direct(biomes.getOrThrow(Biomes.JUNGLE))));
+    }
+
+    private static TreeConfiguration ebonyTree(EbonyTrunkPlacer.GenerationContext generationContext) {
+        return ebonyTree(generationContext, ModBlocks.EBONY_LOG.get(), ModBlocks.EBONY_LEAVES.get());
+    }
+
+    /**
+     * The ebony tree configuration with the given log and leaves, so tools running outside FML (the tree simulator)
+     * can grow the same trees with vanilla blocks
+     */
+    public static TreeConfiguration ebonyTree(EbonyTrunkPlacer.GenerationContext generationContext, Block log, Block leaves) {
+        return new TreeConfiguration.TreeConfigurationBuilder(
+                BlockStateProvider.simple(log),
+                new EbonyTrunkPlacer(12, 6, 4, generationContext),
+
+
+                BlockStateProvider.simple(leaves),
                 new EbonyFoliagePlacer(
                         UniformInt.of(7, 9),
                         UniformInt.of(2, 4),
                         10),
 
                 new TwoLayersFeatureSize(1, 0, 2))
-                .build());
+                .build();
     }
 
     public static ResourceKey<ConfiguredFeature<?, ?>> registerKey(String name) {
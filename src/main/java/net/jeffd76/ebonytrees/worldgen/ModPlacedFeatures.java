@@ -2,17 +2,24 @@ package net.jeffd76.ebonytrees.worldgen;
 
 import net.jeffd76.ebonytrees.EbonyTrees;
 import net.jeffd76.ebonytrees.block.ModBlocks;
+import net.jeffd76.ebonytrees.worldgen.placement.custom.EbonyTreeSiteFilter;
+import net.jeffd76.ebonytrees.worldgen.placement.custom.EbonyTreeSpacingPlacement;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.EbonyFoliagePlacer;
+import net.minecraft.core.BlockPos;
 import net.minecraft.core.Holder;
 import net.minecraft.core.HolderGetter;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.data.worldgen.BootstapContext;
 import net.minecraft.data.worldgen.placement.PlacementUtils;
-import net.minecraft.data.worldgen.placement.VegetationPlacements;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.levelgen.blockpredicates.BlockPredicate;
 import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
+import net.minecraft.world.level.levelgen.placement.BiomeFilter;
+import net.minecraft.world.level.levelgen.placement.BlockPredicateFilter;
 import net.minecraft.world.level.levelgen.placement.PlacedFeature;
 import net.minecraft.world.level.levelgen.placement.PlacementModifier;
+import net.minecraft.world.level.levelgen.placement.SurfaceWaterDepthFilter;
 
 import java.util.List;
 
@@ -20,20 +27,46 @@ public class ModPlacedFeatures {
 
     public static final ResourceKey<PlacedFeature> EBONY_PLACED_KEY = registerKey("ebony_placed");
     public static final ResourceKey<PlacedFeature> EBONY_PLACED_RARE_KEY = registerKey("ebony_placed_rare");
+    public static final ResourceKey<PlacedFeature> EBONY_GROVE_PLACED_KEY = registerKey("ebony_grove_placed");
+
+    // Two canopies at this distance can't reach the same block, so neither tree probes or writes the other's cells
+    static final int TRUNK_SPACING = (int) Math.floor(2 * EbonyFoliagePlacer.MAX_CANOPY_REACH) + 1;
 
     public static void bootstrap(BootstapContext<PlacedFeature> context) {
         HolderGetter<ConfiguredFeature<?, ?>> configuredFeatures = context.lookup(Registries.CONFIGURED_FEATURE);
 
 
         register(context, EBONY_PLACED_KEY, configuredFeatures.getOrThrow(ModConfiguredFeatures.EBONY_KEY),
-                VegetationPlacements.treePlacement(
-                        PlacementUtils.countExtra(2, 0.5f, 3),    //minimum #, % chance per chunk, max #
-                        ModBlocks.EBONY_SAPLING.get()));
+                ebonyTreePlacement(new EbonyTreeSpacingPlacement(TRUNK_SPACING, 1.0f, 0)));
 
         register(context, EBONY_PLACED_RARE_KEY, configuredFeatures.getOrThrow(ModConfiguredFeatures.EBONY_KEY),
-                VegetationPlacements.treePlacement(
-                        PlacementUtils.countExtra(0, 0.2f, 2),
-                        ModBlocks.EBONY_SAPLING.get()));
+                ebonyTreePlacement(new EbonyTreeSpacingPlacement(TRUNK_SPACING, 0.15f, 1)));
+
+        // The grove picks its own trunk positions, so it runs once per chunk
+        register(context, EBONY_GROVE_PLACED_KEY, configuredFeatures.getOrThrow(ModConfiguredFeatures.EBONY_GROVE_KEY),
+                List.of(BiomeFilter.biome()));
+    }
+
+    /**
+     * Same modifiers as VegetationPlacements.treePlacement, with the spaced trunk positions in place of the count
+     * and spread, and the site filter just before the sapling survival check so unsuitable spots never reach the tree
+     * feature
+     */
+    private static List<PlacementModifier> ebonyTreePlacement(EbonyTreeSpacingPlacement spacing) {
+        return List.of(
+                spacing,
+                SurfaceWaterDepthFilter.forMaxDepth(0),
+                PlacementUtils.HEIGHTMAP_OCEAN_FLOOR,
+                BiomeFilter.biome(),
+                siteFilter(),
+                BlockPredicateFilter.forPredicate(BlockPredicate.wouldSurvive(ModBlocks.EBONY_SAPLING.get().defaultBlockState(), BlockPos.ZERO)));
+    }
+
+    /**
+     * Site checks shared by the placed trees and the grove
+     */
+    static EbonyTreeSiteFilter siteFilter() {
+        return new EbonyTreeSiteFilter(7, 12, 6);
     }
 
     private static ResourceKey<PlacedFeature> registerKey(String name) {
@@ -0,0 +1,26 @@
+package net.jeffd76.ebonytrees.worldgen.feature;
+
+import net.jeffd76.ebonytrees.EbonyTrees;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyGroveConfiguration;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyGroveFeature;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.levelgen.feature.Feature;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraftforge.eventbus.api.IEventBus;
+import net.minecraftforge.registries.DeferredRegister;
+import net.minecraftforge.registries.RegistryObject;
+
+public class ModFeatures {
+    public static final DeferredRegister<Feature<?>> FEATURES =
+            DeferredRegister.create(Registries.FEATURE, EbonyTrees.MOD_ID);
+
+    public static final RegistryObject<Feature<TreeConfiguration>> EBONY_TREE =
+            FEATURES.register("ebony_tree", () -> new EbonyTreeFeature(TreeConfiguration.CODEC));
+    public static final RegistryObject<Feature<EbonyGroveConfiguration>> EBONY_GROVE =
+            FEATURES.register("ebony_grove", () -> new EbonyGroveFeature(EbonyGroveConfiguration.CODEC));
+
+    public static void register(IEventBus eventBus) {
+        FEATURES.register(eventBus);
+    }
+}
@@ -0,0 +1,40 @@
+package net.jeffd76.ebonytrees.worldgen.feature.custom;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.jeffd76.ebonytrees.worldgen.placement.custom.EbonyTreeSiteFilter;
+import net.jeffd76.ebonytrees.worldgen.placement.custom.EbonyTreeSpacingPlacement;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderSet;
+import net.minecraft.core.RegistryCodecs;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.util.valueproviders.IntProvider;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
+import net.minecraft.world.level.levelgen.feature.configurations.FeatureConfiguration;
+
+import java.util.stream.Stream;
+
+/**
+ * Configuration for EbonyGroveFeature: the tree to plant, the most trees per chunk, the spacing grid the trunk
+ * candidates come from, the site filter they have to pass, the sapling whose survival rules pick the ground, like
+ * treePlacement's wouldSurvive filter, and the biomes each trunk has to stand in, like its biome filter
+ */
+public record EbonyGroveConfiguration(Holder<ConfiguredFeature<?, ?>> tree, IntProvider count,
+                                      EbonyTreeSpacingPlacement spacing, EbonyTreeSiteFilter siteFilter,
+                                      BlockState sapling, HolderSet<Biome> biomes) implements FeatureConfiguration {
+    public static final Codec<EbonyGroveConfiguration> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            ConfiguredFeature.CODEC.fieldOf("tree").forGetter(EbonyGroveConfiguration::tree),
+            IntProvider.codec(0, 64).fieldOf("count").forGetter(EbonyGroveConfiguration::count),
+            EbonyTreeSpacingPlacement.CODEC.fieldOf("spacing").forGetter(EbonyGroveConfiguration::spacing),
+            EbonyTreeSiteFilter.CODEC.fieldOf("site_filter").forGetter(EbonyGroveConfiguration::siteFilter),
+            BlockState.CODEC.fieldOf("sapling").forGetter(EbonyGroveConfiguration::sapling),
+            RegistryCodecs.homogeneousList(Registries.BIOME).fieldOf("biomes").forGetter(EbonyGroveConfiguration::biomes)
+    ).apply(instance, EbonyGroveConfiguration::new));
+
+    @Override
+    public Stream<ConfiguredFeature<?, ?>> getFeatures() {
+        return this.tree.value().getFeatures();
+    }
+}
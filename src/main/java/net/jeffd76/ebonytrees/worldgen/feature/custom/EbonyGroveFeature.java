@@ -0,0 +1,96 @@
+package net.jeffd76.ebonytrees.worldgen.feature.custom;
+
+import com.mojang.serialization.Codec;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
+import net.minecraft.world.level.levelgen.feature.Feature;
+import net.minecraft.world.level.levelgen.feature.FeaturePlaceContext;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraft.world.level.levelgen.placement.PlacementContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plants every ebony tree of a chunk in one go. Trunk candidates come from the seed-hashed spacing grid of
+ * EbonyTreeSpacingPlacement, so trunks keep their distance across chunk borders too, and have to pass the site filter
+ * and the spot checks of treePlacement. All the trees are grown into one shared TreeShapeBuffer. Later trees see the
+ * earlier ones in the buffer, the occupancy snapshot is read once for the whole grove, and leaf distances and the
+ * write to the level happen once at the end.
+ * <p>
+ * Place it once per chunk (e.g. with only a biome filter); it picks its own positions inside the chunk and checks
+ * each of them against its configured biomes.
+ */
+public class EbonyGroveFeature extends Feature<EbonyGroveConfiguration> {
+    public EbonyGroveFeature(Codec<EbonyGroveConfiguration> pCodec) {
+        super(pCodec);
+    }
+
+    @Override
+    public boolean place(FeaturePlaceContext<EbonyGroveConfiguration> pContext) {
+        WorldGenLevel level = pContext.level();
+        RandomSource random = pContext.random();
+        EbonyGroveConfiguration config = pContext.config();
+
+        PlacementContext placementContext = new PlacementContext(level, pContext.chunkGenerator(), Optional.empty());
+        List<BlockPos> trunks = layOut(placementContext, random, pContext.origin(), config);
+        if (trunks.isEmpty()) {
+            return false;
+        }
+
+        ConfiguredFeature<?, ?> tree = config.tree().value();
+        if (ModCommonConfigs.TREE_GENERATION_MODE.get() == ModCommonConfigs.TreeGenerationMode.PROCEDURAL &&
+                tree.feature() instanceof EbonyTreeFeature ebonyTree && tree.config() instanceof TreeConfiguration treeConfig &&
+                EbonyTreeFeature.canBuffer(treeConfig)) {
+            return ebonyTree.growAll(level, random, trunks, treeConfig) > 0;
+        }
+
+        // Stamped variants, and anything the shared buffer can't hold, are placed tree by tree
+        boolean placed = false;
+        for (BlockPos trunk : trunks) {
+            placed |= tree.place(level, pContext.chunkGenerator(), random, trunk);
+        }
+        return placed;
+    }
+
+    /**
+     * Takes the chunk's candidates from the spacing grid and keeps those that pass the same rules as treePlacement (no
+     * water over the ground, in one of the grove's biomes, the site filter, the sapling would survive), then picks up to
+     * count of them in random order. The biome is checked per trunk since the grove's own placement only checks the
+     * chunk origin.
+     */
+    private static List<BlockPos> layOut(PlacementContext pContext, RandomSource pRandom, BlockPos pOrigin, EbonyGroveConfiguration pConfig) {
+        int count = pConfig.count().sample(pRandom);
+        if (count <= 0) {
+            return List.of();
+        }
+
+        WorldGenLevel level = pContext.getLevel();
+        List<BlockPos> candidates = new ArrayList<>();
+        pConfig.spacing().getPositions(pContext, pRandom, pOrigin).forEach(column -> {
+            int y = level.getHeight(Heightmap.Types.OCEAN_FLOOR, column.getX(), column.getZ());
+            if (level.getHeight(Heightmap.Types.WORLD_SURFACE, column.getX(), column.getZ()) > y) return;
+
+            BlockPos pos = new BlockPos(column.getX(), y, column.getZ());
+            if (!pConfig.biomes().contains(level.getBiome(pos))) return;
+
+            if (pConfig.siteFilter().accepts(pContext, pos) && pConfig.sapling().canSurvive(level, pos)) {
+                candidates.add(pos);
+            }
+        });
+
+        // Partial Fisher-Yates shuffle, stopping as soon as the grove is full
+        int trunks = Math.min(count, candidates.size());
+        for (int i = 0; i < trunks; i++) {
+            int pick = i + pRandom.nextInt(candidates.size() - i);
+            candidates.set(pick, candidates.set(i, candidates.get(pick)));
+        }
+
+        return candidates.subList(0, trunks);
+    }
+}
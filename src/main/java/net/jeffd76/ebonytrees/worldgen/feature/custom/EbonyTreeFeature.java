@@ -0,0 +1,262 @@
+package net.jeffd76.ebonytrees.worldgen.feature.custom;
+
+import com.mojang.serialization.Codec;
+import net.jeffd76.ebonytrees.block.growth.BlockedSaplingCache;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.jeffd76.ebonytrees.metrics.ModMetrics;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.EbonyTreeTemplates;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.TreeShape;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.TreeShapeBuffer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LevelSimulatedReader;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.feature.Feature;
+import net.minecraft.world.level.levelgen.feature.FeaturePlaceContext;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Tree feature for ebony trees. Grows the tree into a TreeShapeBuffer, resolves leaf DISTANCE there from the buffered
+ * logs, and writes the finished tree to the level in one pass. This replaces TreeFeature's leaf update and edge shape
+ * passes over the whole bounding box, and the placed blocks don't notify their neighbours.
+ * <p>
+ * In STAMPED mode one of the pregenerated variants is placed instead, falling back to growing the tree when the
+ * variant doesn't fit.
+ */
+public class EbonyTreeFeature extends Feature<TreeConfiguration> {
+    // Leaves already carry their final distance, so neighbours don't need to be told about the new blocks
+    private static final int SET_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+
+    public EbonyTreeFeature(Codec<TreeConfiguration> pCodec) {
+        super(pCodec);
+    }
+
+    @Override
+    public boolean place(FeaturePlaceContext<TreeConfiguration> pContext) {
+        TreeConfiguration config = pContext.config();
+
+        if (!canBuffer(config)) {
+            return Feature.TREE.place(pContext);
+        }
+
+        if (ModCommonConfigs.TREE_GENERATION_MODE.get() == ModCommonConfigs.TreeGenerationMode.STAMPED &&
+                EbonyTreeTemplates.get(this, config).stamp(pContext.level(), pContext.random(), pContext.origin())) {
+            ModMetrics.TREES_STAMPED.increment();
+            return true;
+        }
+
+        return grow(pContext.level(), pContext.random(), pContext.origin(), config);
+    }
+
+    /**
+     * Decorators and root placers need TreeFeature's block sets, configurations using them are left to it
+     */
+    public static boolean canBuffer(TreeConfiguration pConfig) {
+        return pConfig.decorators.isEmpty() && pConfig.rootPlacer.isEmpty();
+    }
+
+    /**
+     * Computes the tree at the position without touching the level, for callers that write it out themselves.
+     * Returns null if the tree doesn't fit. Safe to call off the server thread when the level is a LevelSnapshot.
+     */
+    @Nullable
+    public <L extends LevelSimulatedReader & LevelHeightAccessor> TreeShape computeShape(L pLevel, RandomSource pRandom,
+                                                                                       BlockPos pPos, TreeConfiguration pConfig) {
+        TreeShapeBuffer buffer = TreeShapeBuffer.begin(pLevel, pPos);
+        try {
+            int treeHeight = growInto(buffer, pLevel, pRandom, pPos, pConfig);
+            if (treeHeight < 0) {
+                return null;
+            }
+
+            buffer.resolveLeafDistances();
+            return TreeShape.capture(buffer, treeHeight);
+        } finally {
+            buffer.end();
+        }
+    }
+
+    private boolean grow(WorldGenLevel pLevel, RandomSource pRandom, BlockPos pPos, TreeConfiguration pConfig) {
+        TreeShapeBuffer buffer = TreeShapeBuffer.begin(pLevel, pPos);
+        try {
+            if (growInto(buffer, pLevel, pRandom, pPos, pConfig) < 0) {
+                return false;
+            }
+
+            buffer.resolveLeafDistances();
+            buffer.flush((pos, state) -> write(pLevel, pos, state));
+            return true;
+        } finally {
+            buffer.end();
+        }
+    }
+
+    /**
+     * Grows a tree at each position into one shared buffer, so every tree sees the ones grown before it, then
+     * resolves leaf distances and writes them all in one pass. Returns how many trees were grown.
+     */
+    int growAll(WorldGenLevel pLevel, RandomSource pRandom, List<BlockPos> pPositions, TreeConfiguration pConfig) {
+        TreeShapeBuffer buffer = TreeShapeBuffer.begin(pLevel, groveOrigin(pPositions));
+        try {
+            int grown = growAllInto(buffer, pLevel, pRandom, pPositions, pConfig);
+            if (grown > 0) {
+                buffer.resolveLeafDistances();
+                buffer.flush((pos, state) -> write(pLevel, pos, state));
+            }
+            return grown;
+        } finally {
+            buffer.end();
+        }
+    }
+
+    /**
+     * growAll without touching the level: the trees at all the positions as one shape, or null if none of them fit
+     */
+    @Nullable
+    public <L extends LevelSimulatedReader & LevelHeightAccessor> TreeShape computeShape(L pLevel, RandomSource pRandom,
+                                                                                       List<BlockPos> pPositions, TreeConfiguration pConfig) {
+        TreeShapeBuffer buffer = TreeShapeBuffer.begin(pLevel, groveOrigin(pPositions));
+        try {
+            if (growAllInto(buffer, pLevel, pRandom, pPositions, pConfig) == 0) {
+                return null;
+            }
+
+            buffer.resolveLeafDistances();
+            return TreeShape.capture(buffer, -1);
+        } finally {
+            buffer.end();
+        }
+    }
+
+    private <L extends LevelSimulatedReader & LevelHeightAccessor> int growAllInto(TreeShapeBuffer pBuffer, L pLevel,
+                                                                                   RandomSource pRandom, List<BlockPos> pPositions,
+                                                                                   TreeConfiguration pConfig) {
+        int grown = 0;
+        for (BlockPos pos : pPositions) {
+            if (growInto(pBuffer, pLevel, pRandom, pos, pConfig) >= 0) {
+                grown++;
+            }
+        }
+        return grown;
+    }
+
+    /**
+     * Centre of the trunks' horizontal span at the lowest trunk. Canopies reaching past the buffer's box go to its
+     * overflow map, which resolveLeafDistances walks as well.
+     */
+    private static BlockPos groveOrigin(List<BlockPos> pPositions) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (BlockPos pos : pPositions) {
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxZ = Math.max(maxZ, pos.getZ());
+        }
+        return new BlockPos(Math.floorDiv(minX + maxX, 2), minY, Math.floorDiv(minZ + maxZ, 2));
+    }
+
+    /**
+     * Same sizing and free space rules as TreeFeature.doPlace, with every block going into the buffer. The free
+     * space check reads through the buffer, so trees already in it count as obstacles. Records the tree's time,
+     * blocks and level probes in ModMetrics. Returns the height the trunk was grown to, or -1 if the tree didn't fit.
+     */
+    private <L extends LevelSimulatedReader & LevelHeightAccessor> int growInto(TreeShapeBuffer pBuffer, L pLevel, RandomSource pRandom,
+                                                                                BlockPos pPos, TreeConfiguration pConfig) {
+        long start = System.nanoTime();
+        int probesBefore = pBuffer.levelProbes();
+
+        int treeHeight = pConfig.trunkPlacer.getTreeHeight(pRandom);
+        int foliageHeight = pConfig.foliagePlacer.foliageHeight(pRandom, treeHeight, pConfig);
+        int foliageRadius = pConfig.foliagePlacer.foliageRadius(pRandom, treeHeight - foliageHeight);
+
+        if (pPos.getY() < pLevel.getMinBuildHeight() + 1 || pPos.getY() + treeHeight + 1 > pLevel.getMaxBuildHeight()) {
+            return -1;
+        }
+
+        OptionalInt minClippedHeight = pConfig.minimumSize.minClippedHeight();
+        int freeTreeHeight = getMaxFreeTreeHeight(pBuffer.reader(), treeHeight, pPos, pConfig);
+        if (freeTreeHeight < treeHeight && (minClippedHeight.isEmpty() || freeTreeHeight < minClippedHeight.getAsInt())) {
+            ModMetrics.TREES_REJECTED.increment();
+            return -1;
+        }
+
+        int sizeBefore = pBuffer.size();
+        List<FoliagePlacer.FoliageAttachment> attachments =
+                pConfig.trunkPlacer.placeTrunk(pBuffer.reader(), pBuffer, pRandom, freeTreeHeight, pPos, pConfig);
+        for (FoliagePlacer.FoliageAttachment attachment : attachments) {
+            pConfig.foliagePlacer.createFoliage(pBuffer.reader(), pBuffer, pRandom, pConfig, freeTreeHeight,
+                    attachment, foliageHeight, foliageRadius);
+        }
+
+        int blocks = pBuffer.size() - sizeBefore;
+        if (blocks == 0) {
+            ModMetrics.TREES_REJECTED.increment();
+            return -1;
+        }
+
+        ModMetrics.TREES_GROWN.increment();
+        ModMetrics.TREE_GENERATION_NANOS.record(System.nanoTime() - start);
+        ModMetrics.BLOCKS_PER_TREE.record(blocks);
+        ModMetrics.LEVEL_PROBES_PER_TREE.record(pBuffer.levelProbes() - probesBefore);
+        return freeTreeHeight;
+    }
+
+    /**
+     * Writes one finished block, telling the blocked sapling cache as the write skips the neighbour notifications it
+     * listens to
+     */
+    private static void write(WorldGenLevel pLevel, BlockPos pPos, BlockState pState) {
+        pLevel.setBlock(pPos, pState, SET_FLAGS);
+        BlockedSaplingCache.onBlockWritten(pLevel, pPos);
+    }
+
+    /**
+     * Whether the space TreeFeature checks before growing a trunk of the given height is still free. Starts above
+     * the origin, where a sapling waiting for its tree still stands.
+     */
+    public static boolean isFreeAbove(LevelSimulatedReader pLevel, BlockPos pPos, int pTreeHeight, TreeConfiguration pConfig) {
+        return getMaxFreeTreeHeight(pLevel, pTreeHeight, pPos, pConfig, 1) >= pTreeHeight;
+    }
+
+    private static int getMaxFreeTreeHeight(LevelSimulatedReader pLevel, int pTrunkHeight, BlockPos pPos, TreeConfiguration pConfig) {
+        return getMaxFreeTreeHeight(pLevel, pTrunkHeight, pPos, pConfig, 0);
+    }
+
+    /**
+     * Copy of TreeFeature.getMaxFreeTreeHeight, which is private, checking from the given height up
+     */
+    private static int getMaxFreeTreeHeight(LevelSimulatedReader pLevel, int pTrunkHeight, BlockPos pPos, TreeConfiguration pConfig,
+                                            int pFromY) {
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+        for (int y = pFromY; y <= pTrunkHeight + 1; y++) {
+            int size = pConfig.minimumSize.getSizeAtHeight(pTrunkHeight, y);
+
+            for (int x = -size; x <= size; x++) {
+                for (int z = -size; z <= size; z++) {
+                    cursor.setWithOffset(pPos, x, y, z);
+                    if (!pConfig.trunkPlacer.isFree(pLevel, cursor) ||
+                            !pConfig.ignoreVines && pLevel.isStateAtPosition(cursor, state -> state.is(Blocks.VINE))) {
+                        return y - 2;
+                    }
+                }
+            }
+        }
+
+        return pTrunkHeight;
+    }
+}
@@ -0,0 +1,24 @@
+package net.jeffd76.ebonytrees.worldgen.placement;
+
+import net.jeffd76.ebonytrees.EbonyTrees;
+import net.jeffd76.ebonytrees.worldgen.placement.custom.EbonyTreeSiteFilter;
+import net.jeffd76.ebonytrees.worldgen.placement.custom.EbonyTreeSpacingPlacement;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.levelgen.placement.PlacementModifierType;
+import net.minecraftforge.eventbus.api.IEventBus;
+import net.minecraftforge.registries.DeferredRegister;
+import net.minecraftforge.registries.RegistryObject;
+
+public class ModPlacementModifiers {
+    public static final DeferredRegister<PlacementModifierType<?>> PLACEMENT_MODIFIERS =
+            DeferredRegister.create(Registries.PLACEMENT_MODIFIER_TYPE, EbonyTrees.MOD_ID);
+
+    public static final RegistryObject<PlacementModifierType<EbonyTreeSiteFilter>> EBONY_TREE_SITE_FILTER =
+            PLACEMENT_MODIFIERS.register("ebony_tree_site_filter", () -> () -> EbonyTreeSiteFilter.CODEC);
+    public static final RegistryObject<PlacementModifierType<EbonyTreeSpacingPlacement>> EBONY_TREE_SPACING =
+            PLACEMENT_MODIFIERS.register("ebony_tree_spacing", () -> () -> EbonyTreeSpacingPlacement.CODEC);
+
+    public static void register(IEventBus eventBus) {
+        PLACEMENT_MODIFIERS.register(eventBus);
+    }
+}
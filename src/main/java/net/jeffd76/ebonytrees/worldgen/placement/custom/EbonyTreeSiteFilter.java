@@ -0,0 +1,139 @@
+package net.jeffd76.ebonytrees.worldgen.placement.custom;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.jeffd76.ebonytrees.metrics.ModMetrics;
+import net.jeffd76.ebonytrees.worldgen.placement.ModPlacementModifiers;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.placement.PlacementContext;
+import net.minecraft.world.level.levelgen.placement.PlacementFilter;
+import net.minecraft.world.level.levelgen.placement.PlacementModifierType;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Cheap rejection of ebony tree positions that would fail or look wrong once the tree feature has started. Meant to
+ * run right after the heightmap placement, and only reads heightmaps and two block states:
+ * <ul>
+ *     <li>the trunk has to stand on dirt and not in water, which also rules out positions that landed on top of
+ *     another tree's canopy</li>
+ *     <li>the surface at the four canopy extents can't rise more than canopyClearance above the trunk base (cliffs,
+ *     jungle giants)</li>
+ *     <li>the 4x4 cell of the chunk around the trunk can't be steeper than maxSlope, from a slope summary computed
+ *     once per chunk</li>
+ * </ul>
+ */
+public class EbonyTreeSiteFilter extends PlacementFilter {
+    public static final Codec<EbonyTreeSiteFilter> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.intRange(0, 16).fieldOf("canopy_radius").forGetter(filter -> filter.canopyRadius),
+            Codec.intRange(0, 64).fieldOf("canopy_clearance").forGetter(filter -> filter.canopyClearance),
+            Codec.intRange(0, 64).fieldOf("max_slope").forGetter(filter -> filter.maxSlope)
+    ).apply(instance, EbonyTreeSiteFilter::new));
+
+    // Decoration runs one chunk at a time per worker thread, so the last chunk's summary is all that's worth keeping
+    private static final ThreadLocal<SlopeSummary> SLOPES = ThreadLocal.withInitial(SlopeSummary::new);
+
+    private final int canopyRadius;
+    private final int canopyClearance;
+    private final int maxSlope;
+
+    public EbonyTreeSiteFilter(int canopyRadius, int canopyClearance, int maxSlope) {
+        this.canopyRadius = canopyRadius;
+        this.canopyClearance = canopyClearance;
+        this.maxSlope = maxSlope;
+    }
+
+    @Override
+    protected boolean shouldPlace(PlacementContext pContext, RandomSource pRandom, BlockPos pPos) {
+        return accepts(pContext, pPos);
+    }
+
+    /**
+     * Runs the checks on a trunk position and counts the verdict in ModMetrics, for features that pick their own
+     * positions
+     */
+    public boolean accepts(PlacementContext pContext, BlockPos pPos) {
+        boolean accepted = isSuitable(pContext, pPos);
+        (accepted ? ModMetrics.SITES_ACCEPTED : ModMetrics.SITES_REJECTED).increment();
+        return accepted;
+    }
+
+    private boolean isSuitable(PlacementContext pContext, BlockPos pPos) {
+        // Surface: dirt under the trunk, nothing liquid where it starts
+        BlockState ground = pContext.getBlockState(pPos.below());
+        if (!ground.is(BlockTags.DIRT) || !pContext.getBlockState(pPos).getFluidState().isEmpty()) {
+            return false;
+        }
+
+        // Canopy extents
+        int maxHeight = pPos.getY() + this.canopyClearance;
+        if (pContext.getHeight(Heightmap.Types.OCEAN_FLOOR, pPos.getX() + this.canopyRadius, pPos.getZ()) > maxHeight ||
+                pContext.getHeight(Heightmap.Types.OCEAN_FLOOR, pPos.getX() - this.canopyRadius, pPos.getZ()) > maxHeight ||
+                pContext.getHeight(Heightmap.Types.OCEAN_FLOOR, pPos.getX(), pPos.getZ() + this.canopyRadius) > maxHeight ||
+                pContext.getHeight(Heightmap.Types.OCEAN_FLOOR, pPos.getX(), pPos.getZ() - this.canopyRadius) > maxHeight) {
+            return false;
+        }
+
+        return SLOPES.get().slopeAt(pContext.getLevel(), pPos) <= this.maxSlope;
+    }
+
+    @Override
+    public PlacementModifierType<?> type() {
+        return ModPlacementModifiers.EBONY_TREE_SITE_FILTER.get();
+    }
+
+    /**
+     * Height range of each 4x4 cell of one chunk, taken from the OCEAN_FLOOR heightmap at the cell corners
+     */
+    private static final class SlopeSummary {
+        private static final int CELLS = 4;
+        private static final int[] CORNERS = {0, 4, 8, 12, 15};
+
+        private final int[] slopes = new int[CELLS * CELLS];
+        private final int[] heights = new int[CORNERS.length * CORNERS.length];
+        private WeakReference<WorldGenLevel> level = new WeakReference<>(null);
+        private long chunk;
+
+        private int slopeAt(WorldGenLevel pLevel, BlockPos pPos) {
+            long chunk = ChunkPos.asLong(SectionPos.blockToSectionCoord(pPos.getX()), SectionPos.blockToSectionCoord(pPos.getZ()));
+            if (pLevel != this.level.get() || chunk != this.chunk) {
+                summarise(pLevel, chunk);
+            }
+
+            int cellX = (pPos.getX() & 15) / CELLS;
+            int cellZ = (pPos.getZ() & 15) / CELLS;
+            return this.slopes[cellZ * CELLS + cellX];
+        }
+
+        private void summarise(WorldGenLevel pLevel, long pChunk) {
+            this.level = new WeakReference<>(pLevel);
+            this.chunk = pChunk;
+
+            int minX = SectionPos.sectionToBlockCoord(ChunkPos.getX(pChunk));
+            int minZ = SectionPos.sectionToBlockCoord(ChunkPos.getZ(pChunk));
+            for (int z = 0; z < CORNERS.length; z++) {
+                for (int x = 0; x < CORNERS.length; x++) {
+                    this.heights[z * CORNERS.length + x] =
+                            pLevel.getHeight(Heightmap.Types.OCEAN_FLOOR, minX + CORNERS[x], minZ + CORNERS[z]);
+                }
+            }
+
+            for (int z = 0; z < CELLS; z++) {
+                for (int x = 0; x < CELLS; x++) {
+                    int a = this.heights[z * CORNERS.length + x];
+                    int b = this.heights[z * CORNERS.length + x + 1];
+                    int c = this.heights[(z + 1) * CORNERS.length + x];
+                    int d = this.heights[(z + 1) * CORNERS.length + x + 1];
+                    this.slopes[z * CELLS + x] = Math.max(Math.max(a, b), Math.max(c, d)) - Math.min(Math.min(a, b), Math.min(c, d));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package net.jeffd76.ebonytrees.worldgen.placement.custom;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.jeffd76.ebonytrees.worldgen.placement.ModPlacementModifiers;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.levelgen.placement.PlacementContext;
+import net.minecraft.world.level.levelgen.placement.PlacementModifier;
+import net.minecraft.world.level.levelgen.placement.PlacementModifierType;
+
+import java.util.stream.Stream;
+
+/**
+ * Poisson-disk style trunk positions: no two trees from this placement end up closer than minDistance, even across
+ * chunk borders, without reading any chunk. The world is cut into minDistance sized grid cells, each holding at most
+ * one candidate at a position and priority hashed from the world seed, the salt and the cell. A candidate is kept
+ * unless a higher priority candidate in a neighbouring cell is within minDistance, so every chunk reaches the same
+ * verdict for a candidate on its own. Replaces the count and in_square placements.
+ */
+public class EbonyTreeSpacingPlacement extends PlacementModifier {
+    public static final Codec<EbonyTreeSpacingPlacement> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.intRange(2, 64).fieldOf("min_distance").forGetter(placement -> placement.minDistance),
+            Codec.floatRange(0.0f, 1.0f).fieldOf("chance").forGetter(placement -> placement.chance),
+            Codec.INT.fieldOf("salt").forGetter(placement -> placement.salt)
+    ).apply(instance, EbonyTreeSpacingPlacement::new));
+
+    private final int minDistance;
+    private final float chance;
+    private final int salt;
+
+    /**
+     * @param minDistance smallest distance between two trunks, which is also the grid cell size
+     * @param chance      chance that a cell holds a candidate at all, to thin the trees out
+     * @param salt        keeps placements with different salts from sharing candidates
+     */
+    public EbonyTreeSpacingPlacement(int minDistance, float chance, int salt) {
+        this.minDistance = minDistance;
+        this.chance = chance;
+        this.salt = salt;
+    }
+
+    @Override
+    public Stream<BlockPos> getPositions(PlacementContext pContext, RandomSource pRandom, BlockPos pPos) {
+        long seed = pContext.getLevel().getSeed() ^ this.salt * 0x9E3779B97F4A7C15L;
+        ChunkPos chunk = new ChunkPos(pPos);
+        Stream.Builder<BlockPos> positions = Stream.builder();
+
+        int minCellX = Math.floorDiv(chunk.getMinBlockX(), this.minDistance);
+        int maxCellX = Math.floorDiv(chunk.getMaxBlockX(), this.minDistance);
+        int minCellZ = Math.floorDiv(chunk.getMinBlockZ(), this.minDistance);
+        int maxCellZ = Math.floorDiv(chunk.getMaxBlockZ(), this.minDistance);
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                long candidate = hash(seed, cellX, cellZ);
+                if (!exists(candidate)) continue;
+
+                int x = candidateX(candidate, cellX);
+                int z = candidateZ(candidate, cellZ);
+                if (x >> 4 == chunk.x && z >> 4 == chunk.z && isKept(seed, cellX, cellZ, candidate, x, z)) {
+                    positions.add(new BlockPos(x, pPos.getY(), z));
+                }
+            }
+        }
+
+        return positions.build();
+    }
+
+    /**
+     * Whether no higher priority candidate in the surrounding cells is closer than minDistance. Candidates further
+     * than one cell away are always at least minDistance apart.
+     */
+    private boolean isKept(long pSeed, int pCellX, int pCellZ, long pCandidate, int pX, int pZ) {
+        int minDistanceSqr = this.minDistance * this.minDistance;
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (dx == 0 && dz == 0) continue;
+
+                long other = hash(pSeed, pCellX + dx, pCellZ + dz);
+                if (!exists(other)) continue;
+
+                int offsetX = candidateX(other, pCellX + dx) - pX;
+                int offsetZ = candidateZ(other, pCellZ + dz) - pZ;
+                if (offsetX * offsetX + offsetZ * offsetZ < minDistanceSqr && outranks(other, dx, dz, pCandidate)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Priority comparison, with ties broken by cell position so exactly one of two clashing candidates survives
+     */
+    private static boolean outranks(long pOther, int pDx, int pDz, long pCandidate) {
+        int comparison = Long.compareUnsigned(priority(pOther), priority(pCandidate));
+        return comparison != 0 ? comparison > 0 : pDx > 0 || (pDx == 0 && pDz > 0);
+    }
+
+    private boolean exists(long pHash) {
+        return ((pHash >>> 40) & 0xFFFFFF) < this.chance * (1 << 24);
+    }
+
+    private int candidateX(long pHash, int pCellX) {
+        return pCellX * this.minDistance + (int) ((pHash & 0xFFFFF) % this.minDistance);
+    }
+
+    private int candidateZ(long pHash, int pCellZ) {
+        return pCellZ * this.minDistance + (int) (((pHash >>> 20) & 0xFFFFF) % this.minDistance);
+    }
+
+    private static long priority(long pHash) {
+        return mix(pHash);
+    }
+
+    private static long hash(long pSeed, int pCellX, int pCellZ) {
+        return mix(pSeed ^ pCellX * 0xC2B2AE3D27D4EB4FL ^ pCellZ * 0x165667B19E3779F9L);
+    }
+
+    /**
+     * SplitMix64 finaliser
+     */
+    private static long mix(long pValue) {
+        pValue = (pValue ^ (pValue >>> 30)) * 0xBF58476D1CE4E5B9L;
+        pValue = (pValue ^ (pValue >>> 27)) * 0x94D049BB133111EBL;
+        return pValue ^ (pValue >>> 31);
+    }
+
+    @Override
+    public PlacementModifierType<?> type() {
+        return ModPlacementModifiers.EBONY_TREE_SPACING.get();
+    }
+}
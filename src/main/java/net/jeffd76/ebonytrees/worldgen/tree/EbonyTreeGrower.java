@@ -1,16 +1,96 @@
 package net.jeffd76.ebonytrees.worldgen.tree;
 
+import net.jeffd76.ebonytrees.block.growth.BlockedSaplingCache;
+import net.jeffd76.ebonytrees.block.growth.SaplingGrowthScheduler;
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
 import net.jeffd76.ebonytrees.worldgen.ModConfiguredFeatures;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.TreeShape;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.grower.AbstractTreeGrower;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkGenerator;
 import net.minecraft.world.level.levelgen.feature.ConfiguredFeature;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraftforge.event.ForgeEventFactory;
+import net.minecraftforge.event.level.SaplingGrowTreeEvent;
+import net.minecraftforge.eventbus.api.Event;
 import org.jetbrains.annotations.Nullable;
 
 public class EbonyTreeGrower extends AbstractTreeGrower {
     @Nullable
     @Override
     protected ResourceKey<ConfiguredFeature<?, ?>> getConfiguredFeature(RandomSource pRandom, boolean pHasFlowers) {
-        return ModConfiguredFeatures.EBONY_KEY;
+        return ModConfiguredFeatures.EBONY_SAPLING_KEY;
+    }
+
+    @Override
+    public boolean growTree(ServerLevel pLevel, ChunkGenerator pGenerator, BlockPos pPos, BlockState pState, RandomSource pRandom) {
+        return growTree(pLevel, pGenerator, pPos, pState, pRandom, ModCommonConfigs.ASYNC_SAPLING_GROWTH.get());
+    }
+
+    /**
+     * Same as AbstractTreeGrower.growTree, except that ebony trees are only computed here and handed to the
+     * SaplingGrowthScheduler, which writes them out over the following ticks. With async on, they aren't even computed
+     * here but on a worker thread. Async is passed in rather than read from the config so the GameTests can grow
+     * trees synchronously without changing the saved config.
+     */
+    public boolean growTree(ServerLevel pLevel, ChunkGenerator pGenerator, BlockPos pPos, BlockState pState, RandomSource pRandom,
+                            boolean pAsync) {
+        if (SaplingGrowthScheduler.isPending(pLevel, pPos)) return false;
+        long start = System.nanoTime();
+
+        // Nothing has changed around this sapling since it last found no room
+        BlockedSaplingCache blocked = BlockedSaplingCache.get(pLevel);
+        if (blocked.isBlocked(pPos)) return false;
+
+        ResourceKey<ConfiguredFeature<?, ?>> key = getConfiguredFeature(pRandom, false);
+        Holder<ConfiguredFeature<?, ?>> holder = key == null ? null :
+                pLevel.registryAccess().registryOrThrow(Registries.CONFIGURED_FEATURE).getHolder(key).orElse(null);
+        SaplingGrowTreeEvent event = ForgeEventFactory.blockGrowFeature(pLevel, pRandom, pPos, holder);
+        holder = event.getFeature();
+        if (event.getResult() == Event.Result.DENY || holder == null) return false;
+
+        ConfiguredFeature<?, ?> feature = holder.value();
+        if (pAsync && feature.feature() instanceof EbonyTreeFeature ebonyTree &&
+                feature.config() instanceof TreeConfiguration config && EbonyTreeFeature.canBuffer(config)) {
+            SaplingGrowthScheduler.computeAsync(pLevel, pPos, pState, ebonyTree, config, pRandom.nextLong());
+            return true;
+        }
+
+        // The tree has to see the sapling's spot as free, as it does in vanilla
+        BlockState cleared = pLevel.getFluidState(pPos).createLegacyBlock();
+        pLevel.setBlock(pPos, cleared, Block.UPDATE_INVISIBLE);
+
+        if (feature.feature() instanceof EbonyTreeFeature ebonyTree && feature.config() instanceof TreeConfiguration config &&
+                EbonyTreeFeature.canBuffer(config)) {
+            TreeShape shape = ebonyTree.computeShape(pLevel, pRandom, pPos, config);
+
+            // The sapling stays until the scheduler writes the trunk over it
+            pLevel.setBlock(pPos, pState, Block.UPDATE_INVISIBLE);
+            if (shape == null) {
+                blocked.markBlocked(pPos);
+                return false;
+            }
+
+            SaplingGrowthScheduler.schedule(pLevel, pPos, pState, shape, start);
+            return true;
+        }
+
+        if (feature.place(pLevel, pGenerator, pRandom, pPos)) {
+            if (pLevel.getBlockState(pPos) == cleared) {
+                pLevel.sendBlockUpdated(pPos, pState, cleared, Block.UPDATE_CLIENTS);
+            }
+            return true;
+        }
+
+        pLevel.setBlock(pPos, pState, Block.UPDATE_INVISIBLE);
+        return false;
     }
 }
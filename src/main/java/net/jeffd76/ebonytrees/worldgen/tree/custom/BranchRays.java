@@ -0,0 +1,85 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import net.minecraft.util.RandomSource;
+
+/**
+ * Precomputed integer offsets for the canopy branches. Each branch is a ray from the layer centre at an evenly spaced
+ * angle plus a small jitter; the jitter is snapped to a few buckets so every possible ray can be tabulated once and
+ * branch placement never touches cos, sin or round.
+ */
+final class BranchRays {
+    static final int MAX_BRANCH_COUNT = 16;
+    static final int MAX_DISTANCE = 16;
+    static final int JITTER_BUCKETS = 8;
+
+    // Branch angles are jittered by up to this many radians either way
+    private static final double MAX_JITTER = 0.1;
+
+    private static final Ray[][] RAYS = new Ray[MAX_BRANCH_COUNT + 1][];
+
+    static {
+        for (int count = 1; count <= MAX_BRANCH_COUNT; count++) {
+            Ray[] rays = new Ray[count * JITTER_BUCKETS];
+            for (int branch = 0; branch < count; branch++) {
+                for (int bucket = 0; bucket < JITTER_BUCKETS; bucket++) {
+                    rays[branch * JITTER_BUCKETS + bucket] = new Ray(angle(count, branch, bucket), MAX_DISTANCE);
+                }
+            }
+            RAYS[count] = rays;
+        }
+    }
+
+    private BranchRays() {
+    }
+
+    /**
+     * Rolls the jitter bucket for one branch. Consumes a single nextDouble, like the jitter it replaces.
+     */
+    static int jitterBucket(RandomSource pRandom) {
+        return Math.min(JITTER_BUCKETS - 1, (int) (pRandom.nextDouble() * JITTER_BUCKETS));
+    }
+
+    /**
+     * Returns the ray for a branch, reaching at least maxDistance blocks. Rays outside the table are built on demand.
+     */
+    static Ray get(int branchCount, int branch, int bucket, int maxDistance) {
+        if (branchCount >= 1 && branchCount <= MAX_BRANCH_COUNT && maxDistance <= MAX_DISTANCE) {
+            return RAYS[branchCount][branch * JITTER_BUCKETS + bucket];
+        }
+
+        return new Ray(angle(branchCount, branch, bucket), Math.max(0, maxDistance));
+    }
+
+    private static double angle(int branchCount, int branch, int bucket) {
+        double jitter = ((bucket + 0.5) / JITTER_BUCKETS) * (MAX_JITTER * 2) - MAX_JITTER;
+        return (2 * Math.PI) / branchCount * branch + jitter;
+    }
+
+    /**
+     * Block offsets of one branch ray, indexed by distance from the layer centre
+     */
+    static final class Ray {
+        private final int[] x;
+        private final int[] z;
+
+        private Ray(double angle, int maxDistance) {
+            double cosAngle = Math.cos(angle);
+            double sinAngle = Math.sin(angle);
+            this.x = new int[maxDistance + 1];
+            this.z = new int[maxDistance + 1];
+
+            for (int distance = 0; distance <= maxDistance; distance++) {
+                this.x[distance] = (int) Math.round(cosAngle * distance);
+                this.z[distance] = (int) Math.round(sinAngle * distance);
+            }
+        }
+
+        int x(int distance) {
+            return this.x[distance];
+        }
+
+        int z(int distance) {
+            return this.z[distance];
+        }
+    }
+}
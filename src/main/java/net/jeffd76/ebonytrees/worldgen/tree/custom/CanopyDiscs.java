@@ -0,0 +1,86 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+/**
+ * Immutable cache of the disc geometry used to rasterise canopy layers, so the layer loops only roll their random
+ * jitter instead of recomputing square roots for every cell of every layer.
+ */
+final class CanopyDiscs {
+    static final int MAX_CACHED_RADIUS = 16;
+
+    // Largest value the dense layer jitter can subtract from a distance, rounded up
+    private static final double MAX_JITTER = 0.5;
+
+    private static final Disc[] DISCS = new Disc[MAX_CACHED_RADIUS + 1];
+
+    static {
+        for (int radius = 1; radius <= MAX_CACHED_RADIUS; radius++) {
+            DISCS[radius] = new Disc(radius);
+        }
+    }
+
+    private CanopyDiscs() {
+    }
+
+    /**
+     * Returns the cached disc for the radius, or builds a throwaway one for radii outside the cache
+     */
+    static Disc get(int radius) {
+        if (radius >= 1 && radius <= MAX_CACHED_RADIUS) {
+            return DISCS[radius];
+        }
+
+        return new Disc(Math.max(0, radius));
+    }
+
+    /**
+     * Distance table and masks for a (radius * 2 + 1) square grid centred on the trunk. Cells are addressed with grid
+     * coordinates, i.e. x + radius and z + radius.
+     */
+    static final class Disc {
+        final int radius;
+        final int size;
+        private final double[] distances;
+        private final boolean[] inside;
+        private final boolean[] reachable;
+
+        private Disc(int radius) {
+            this.radius = radius;
+            this.size = radius * 2 + 1;
+            this.distances = new double[this.size * this.size];
+            this.inside = new boolean[this.size * this.size];
+            this.reachable = new boolean[this.size * this.size];
+
+            for (int x = -radius; x <= radius; x++) {
+                for (int z = -radius; z <= radius; z++) {
+                    int index = (x + radius) * this.size + (z + radius);
+                    double distance = Math.sqrt(x * x + z * z);
+
+                    this.distances[index] = distance;
+                    this.inside[index] = distance <= radius;
+                    this.reachable[index] = distance - MAX_JITTER <= radius;
+                }
+            }
+        }
+
+        /**
+         * Exact distance of the cell from the disc centre
+         */
+        double distance(int gridX, int gridZ) {
+            return this.distances[gridX * this.size + gridZ];
+        }
+
+        /**
+         * True if the cell lies within the disc radius
+         */
+        boolean contains(int gridX, int gridZ) {
+            return this.inside[gridX * this.size + gridZ];
+        }
+
+        /**
+         * True if the cell can still end up inside the disc once the dense layer jitter is applied
+         */
+        boolean reachable(int gridX, int gridZ) {
+            return this.reachable[gridX * this.size + gridZ];
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import java.util.Arrays;
+
+/**
+ * Reusable per-thread bitset for rasterising a single foliage layer. Leaves are marked first, then connect() keeps
+ * only the leaves that are 4-connected to the trunk cells, in a single flood fill over the grid.
+ */
+final class CanopyLayerMask {
+    private static final ThreadLocal<CanopyLayerMask> LOCAL = ThreadLocal.withInitial(CanopyLayerMask::new);
+
+    private long[] leaves = new long[0];
+    private long[] connected = new long[0];
+    private int[] queue = new int[0];
+    private int size;
+
+    private CanopyLayerMask() {
+    }
+
+    /**
+     * Returns this thread's mask, cleared and sized for the disc
+     */
+    static CanopyLayerMask begin(CanopyDiscs.Disc disc) {
+        CanopyLayerMask mask = LOCAL.get();
+        mask.reset(disc.size);
+        return mask;
+    }
+
+    private void reset(int size) {
+        this.size = size;
+        int cells = size * size;
+        int words = (cells + 63) >>> 6;
+
+        if (this.leaves.length < words) {
+            this.leaves = new long[words];
+            this.connected = new long[words];
+        } else {
+            Arrays.fill(this.leaves, 0, words, 0L);
+            Arrays.fill(this.connected, 0, words, 0L);
+        }
+
+        if (this.queue.length < cells) {
+            this.queue = new int[cells];
+        }
+    }
+
+    void setLeaf(int gridX, int gridZ) {
+        set(this.leaves, gridX * this.size + gridZ);
+    }
+
+    boolean isLeaf(int gridX, int gridZ) {
+        return get(this.leaves, gridX * this.size + gridZ);
+    }
+
+    /**
+     * Flood fills from the 3x3 trunk area through leaf cells, fills single-cell gaps inside the disc that touch two or
+     * more connected cells, and drops every leaf that is still not connected
+     */
+    void connect(CanopyDiscs.Disc disc) {
+        int size = this.size;
+        int center = disc.radius;
+        int head = 0;
+        int tail = 0;
+
+        // Mark center area as connected (trunk area)
+        for (int x = Math.max(0, center - 1); x <= Math.min(size - 1, center + 1); x++) {
+            for (int z = Math.max(0, center - 1); z <= Math.min(size - 1, center + 1); z++) {
+                int index = x * size + z;
+                set(this.connected, index);
+                this.queue[tail++] = index;
+            }
+        }
+
+        // Single pass flood fill through 4-connected leaves
+        while (head < tail) {
+            int index = this.queue[head++];
+            int x = index / size;
+            int z = index - x * size;
+
+            if (x > 0) tail = visit(index - size, tail);
+            if (x < size - 1) tail = visit(index + size, tail);
+            if (z > 0) tail = visit(index - 1, tail);
+            if (z < size - 1) tail = visit(index + 1, tail);
+        }
+
+        // Fill small gaps between connected leaf areas to prevent isolation
+        for (int x = 1; x < size - 1; x++) {
+            for (int z = 1; z < size - 1; z++) {
+                int index = x * size + z;
+                if (get(this.leaves, index)) continue;
+
+                int connectedNeighbors = 0;
+                if (get(this.connected, index - size)) connectedNeighbors++;
+                if (get(this.connected, index + size)) connectedNeighbors++;
+                if (get(this.connected, index - 1)) connectedNeighbors++;
+                if (get(this.connected, index + 1)) connectedNeighbors++;
+
+                if (connectedNeighbors >= 2 && disc.contains(x, z)) {
+                    set(this.leaves, index);
+                    set(this.connected, index);
+                }
+            }
+        }
+
+        // Remove leaves that are still not connected to prevent isolated decay
+        int words = (size * size + 63) >>> 6;
+        for (int i = 0; i < words; i++) {
+            this.leaves[i] &= this.connected[i];
+        }
+    }
+
+    private int visit(int index, int tail) {
+        if (get(this.leaves, index) && !get(this.connected, index)) {
+            set(this.connected, index);
+            this.queue[tail++] = index;
+        }
+        return tail;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
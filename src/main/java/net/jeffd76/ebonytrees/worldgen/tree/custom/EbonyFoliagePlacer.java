@@ -2,11 +2,17 @@ package net.jeffd76.ebonytrees.worldgen.tree.custom;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.jeffd76.ebonytrees.worldgen.tree.ModFoliagePlacers;
+import net.jeffd76.ebonytrees.worldgen.tree.jfr.EbonyFoliageEvent;
+import net.jeffd76.ebonytrees.worldgen.tree.jfr.EbonyTreeGenerationEvent;
+import net.jeffd76.ebonytrees.worldgen.tree.jfr.EbonyTreePhaseEvent;
+import net.minecraft.core.BlockPos;
 import net.minecraft.util.RandomSource;
 import net.minecraft.util.valueproviders.IntProvider;
 import net.minecraft.world.level.LevelSimulatedReader;
-import net.minecraft.world.level.block.state.BlockBehaviour;
 import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
 import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacer;
 import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacerType;
@@ -20,9 +26,18 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
     private static final int MIN_FOLIAGE_HEIGHT = 8;
     private static final int MAX_FOLIAGE_HEIGHT = 10;
     private static final int MIN_RADIUS = 4;
-    private static final int MAX_RADIUS = 7;
+    public static final int MAX_RADIUS = 7;
     private static final float DENSITY_FACTOR = 0.9f;
 
+    // Furthest a leaf can land from the trunk, horizontally: the widest layer is round(MAX_RADIUS * 1.1) + 1 blocks,
+    // and its edge cells are placed up to 0.4 blocks past that by the jitter. Branches stay within 0.9 of a layer.
+    public static final double MAX_CANOPY_REACH = Math.round(MAX_RADIUS * 1.1f) + 1 + 0.4;
+
+    // Offsets for the 6 neighbours of a branch block
+    private static final int[] NEIGHBOUR_DX = {0, 0, 0, 0, 1, -1};
+    private static final int[] NEIGHBOUR_DY = {1, -1, 0, 0, 0, 0};
+    private static final int[] NEIGHBOUR_DZ = {0, 0, 1, -1, 0, 0};
+
     private final int height;
 
     public EbonyFoliagePlacer(IntProvider pRadius, IntProvider pOffset, int height) {
@@ -38,18 +53,45 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
     @Override
     protected void createFoliage(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom, TreeConfiguration pConfig,
                                  int pMaxFreeTreeHeight, FoliageAttachment pAttachment, int pFoliageHeight, int pFoliageRadius, int pOffset) {
+        // Already writing into a shape buffer owned by the caller
+        if (pBlockSetter instanceof TreeShapeBuffer) {
+            buildFoliage(pLevel, pBlockSetter, pRandom, pConfig, pAttachment, pFoliageHeight, pFoliageRadius, pOffset);
+            return;
+        }
+
+        // Compute the whole canopy first, then write it to the level in one section-ordered pass
+        TreeShapeBuffer buffer = TreeShapeBuffer.begin(pLevel, pAttachment.pos());
+        try {
+            buildFoliage(buffer.reader(), buffer, pRandom, pConfig, pAttachment, pFoliageHeight, pFoliageRadius, pOffset);
+            buffer.flush(pBlockSetter::set);
+        } finally {
+            buffer.end();
+        }
+    }
+
+    /**
+     * Places the canopy layers, branches and undercanopy through the given setter. Reports an EbonyFoliageEvent,
+     * with a phase per canopy layer, connectivity pass, branch cover and undercanopy, when a JFR recording enables them.
+     */
+    private void buildFoliage(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom, TreeConfiguration pConfig,
+                              FoliageAttachment pAttachment, int pFoliageHeight, int pFoliageRadius, int pOffset) {
+        EbonyTrunkPlacer.GenerationContext context = EbonyTreeGenerationEvent.contextOf(pConfig);
+        EbonyFoliageEvent event = new EbonyFoliageEvent();
+        event.start(pLevel, pBlockSetter);
 
         // Calculate realistic canopy dimensions
         int actualFoliageHeight = Math.max(MIN_FOLIAGE_HEIGHT, Math.min(MAX_FOLIAGE_HEIGHT, pFoliageHeight + pRandom.nextInt(3)));
         int baseRadius = Math.max(MIN_RADIUS, Math.min(MAX_RADIUS, pFoliageRadius + pRandom.nextInt(2)));
 
-        // Track branch positions for exposed log coverage
-        java.util.Set<net.minecraft.core.BlockPos> branchPositions = new java.util.HashSet<>();
+        // Track branch positions for exposed log coverage, packed with BlockPos.asLong
+        LongSet branchPositions = new LongOpenHashSet();
 
         // Create dense, rounded canopy characteristic of ebony trees
         for (int layer = 0; layer < actualFoliageHeight; layer++) {
             int currentRadius = calculateLayerRadius(layer, actualFoliageHeight, baseRadius, pRandom);
             net.minecraft.core.BlockPos layerPos = pAttachment.pos().above(layer - pOffset);
+            EbonyTreePhaseEvent layerEvent = new EbonyTreePhaseEvent(EbonyTreePhaseEvent.CANOPY_LAYER, layer);
+            layerEvent.start(pLevel, pBlockSetter);
 
             // Consolidated branch creation based on layer conditions
             createLayerBranches(pLevel, pBlockSetter, pRandom, pConfig, layerPos,
@@ -57,19 +99,28 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
 
             // Create the foliage layer
             createDenseRoundedLayer(pLevel, pBlockSetter, pRandom, pConfig,
-                    layerPos, currentRadius);
+                    layerPos, currentRadius, layer, context);
+
+            layerEvent.finish(pLevel, pBlockSetter, layerPos, actualFoliageHeight, currentRadius, context);
         }
 
 
         // Cover any exposed branches in upper 3/4 of canopy
-        coverExposedBranches(pLevel, pBlockSetter, pRandom, pConfig, branchPositions
-        );
+        EbonyTreePhaseEvent branchCover = new EbonyTreePhaseEvent(EbonyTreePhaseEvent.BRANCH_COVER);
+        branchCover.start(pLevel, pBlockSetter);
+        coverExposedBranches(pLevel, pBlockSetter, pRandom, pConfig, branchPositions);
+        branchCover.finish(pLevel, pBlockSetter, pAttachment.pos(), actualFoliageHeight, baseRadius, context);
 
         // Add sparse undercanopy
         if (pRandom.nextFloat() < 0.6f) {
+            EbonyTreePhaseEvent undercanopy = new EbonyTreePhaseEvent(EbonyTreePhaseEvent.UNDERCANOPY);
+            undercanopy.start(pLevel, pBlockSetter);
             createSparseUndercanopy(pLevel, pBlockSetter, pRandom, pConfig,
                     pAttachment.pos().below(1), baseRadius - 3);
+            undercanopy.finish(pLevel, pBlockSetter, pAttachment.pos().below(1), 1, baseRadius - 3, context);
         }
+
+        event.finish(pLevel, pBlockSetter, pAttachment.pos(), actualFoliageHeight, baseRadius, context);
     }
 
     /**
@@ -77,7 +128,7 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
      */
     private void createLayerBranches(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom,
                                      TreeConfiguration pConfig, net.minecraft.core.BlockPos layerCenter,
-                                     int radius, int layer, int totalHeight, java.util.Set<net.minecraft.core.BlockPos> branchPositions) {
+                                     int radius, int layer, int totalHeight, LongSet branchPositions) {
 
         // Skip branches in top layers to prevent exposure
         if (layer >= totalHeight - 2) return;
@@ -106,23 +157,21 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
     private void createBranches(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom,
                                 TreeConfiguration pConfig, net.minecraft.core.BlockPos layerCenter,
                                 int radius, int layer, int totalHeight, int branchCount,
-                                java.util.Set<net.minecraft.core.BlockPos> branchPositions) {
+                                LongSet branchPositions) {
 
         // Pre-calculate all values to avoid repeated calculations
         boolean isUpperCanopy = layer >= totalHeight * 0.25f;
         int maxBranchLength = layer > totalHeight * 0.7f ? radius - 1 : Math.min(radius + 1, 6);
         int targetDistance = Math.min(maxBranchLength, radius - 1);
-        double angleStep = (2 * Math.PI) / branchCount;
 
         for (int i = 0; i < branchCount; i++) {
-            double angle = angleStep * i + pRandom.nextDouble() * 0.2 - 0.1;
-            double cosAngle = Math.cos(angle);
-            double sinAngle = Math.sin(angle);
+            // Evenly spaced angle plus a bucketed jitter, looked up from the precomputed rays
+            BranchRays.Ray ray = BranchRays.get(branchCount, i, BranchRays.jitterBucket(pRandom), targetDistance);
 
             // Create branch segments efficiently
             for (int j = 2; j <= targetDistance; j++) {
-                int branchX = (int) Math.round(cosAngle * j);
-                int branchZ = (int) Math.round(sinAngle * j);
+                int branchX = ray.x(j);
+                int branchZ = ray.z(j);
 
                 // Quick bounds check before creating BlockPos
                 double distanceSquared = branchX * branchX + branchZ * branchZ;
@@ -130,12 +179,12 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
 
                 net.minecraft.core.BlockPos branchPos = layerCenter.offset(branchX, 0, branchZ);
 
-                if (pLevel.isStateAtPosition(branchPos, BlockBehaviour.BlockStateBase::canBeReplaced)) {
+                if (TreeShapeBuffer.isReplaceable(pLevel, branchPos)) {
                     placeBranchBlockOptimized(pBlockSetter, pRandom, pConfig, branchPos, branchX, branchZ);
 
                     // Only track upper canopy branches
                     if (isUpperCanopy) {
-                        branchPositions.add(branchPos);
+                        branchPositions.add(branchPos.asLong());
                     }
                 }
             }
@@ -161,100 +210,36 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
     }
 
     /**
-     * Streamlined lowest level connection with minimal calculations
-     */
-    private void connectBranchesToTrunk(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom,
-                                        TreeConfiguration pConfig, java.util.Set<net.minecraft.core.BlockPos> branchPositions,
-                                        net.minecraft.core.BlockPos trunkBase, int offset) {
-
-        if (branchPositions.isEmpty()) return;
-
-        // Find lowest branch height efficiently
-        int lowestHeight = Integer.MAX_VALUE;
-        int trunkBaseY = trunkBase.getY();
-
-        for (net.minecraft.core.BlockPos branchPos : branchPositions) {
-            int height = branchPos.getY() - trunkBaseY + offset;
-            if (height < lowestHeight) lowestHeight = height;
-        }
-
-        // Process only lowest level branches
-        int maxHeight = lowestHeight + 1;
-        net.minecraft.core.BlockPos trunkAtLevel = trunkBase.above(lowestHeight);
-
-        for (net.minecraft.core.BlockPos branchPos : branchPositions) {
-            int branchHeight = branchPos.getY() - trunkBaseY + offset;
-
-            if (branchHeight <= maxHeight) {
-                // Quick distance check
-                int dx = branchPos.getX() - trunkBase.getX();
-                int dz = branchPos.getZ() - trunkBase.getZ();
-
-                if (dx * dx + dz * dz >= 1) { // Distance >= 1.0 (squared)
-                    createLowestLevelConnectionOptimized(pLevel, pBlockSetter, pRandom, pConfig,
-                            branchPos, trunkAtLevel);
-                }
-            }
-        }
-    }
-
-    /**
-     * Optimized exposed branch coverage with minimal set operations
+     * Optimized exposed branch coverage: neighbour cells shared by adjacent branches are collected once, then probed
+     * through a single mutable cursor
      */
     private void coverExposedBranches(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom,
-                                      TreeConfiguration pConfig, java.util.Set<net.minecraft.core.BlockPos> branchPositions) {
+                                      TreeConfiguration pConfig, LongSet branchPositions) {
 
         // Early exit if no branches to process
         if (branchPositions.isEmpty()) return;
 
-        // Pre-calculate offsets for 6 directions to avoid repeated object creation
-        int[] dx = {0, 0, 0, 0, 1, -1};
-        int[] dy = {1, -1, 0, 0, 0, 0};
-        int[] dz = {0, 0, 1, -1, 0, 0};
-
-        for (net.minecraft.core.BlockPos branchPos : branchPositions) {
-            // Check all 6 directions efficiently
+        // Branch cells themselves hold logs, so they are never candidates
+        LongSet exposedCells = new LongOpenHashSet(branchPositions.size() * 4);
+        LongIterator branches = branchPositions.iterator();
+        while (branches.hasNext()) {
+            long branchPos = branches.nextLong();
             for (int i = 0; i < 6; i++) {
-                net.minecraft.core.BlockPos adjacentPos = branchPos.offset(dx[i], dy[i], dz[i]);
-
-                if (pLevel.isStateAtPosition(adjacentPos, BlockBehaviour.BlockStateBase::canBeReplaced)) {
-                    tryPlaceLeaf(pLevel, pBlockSetter, pRandom, pConfig, adjacentPos);
+                long adjacentPos = BlockPos.offset(branchPos, NEIGHBOUR_DX[i], NEIGHBOUR_DY[i], NEIGHBOUR_DZ[i]);
+                if (!branchPositions.contains(adjacentPos)) {
+                    exposedCells.add(adjacentPos);
                 }
             }
         }
-    }
 
-    /**
-     * Optimized diagonal connection with pre-calculated state
-     */
-    private void createLowestLevelConnectionOptimized(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom,
-                                                      TreeConfiguration pConfig, net.minecraft.core.BlockPos branchPos,
-                                                      net.minecraft.core.BlockPos trunkPos) {
-
-        // Pre-calculate direction and distance
-        int dx = branchPos.getX() - trunkPos.getX();
-        int dz = branchPos.getZ() - trunkPos.getZ();
-        int stepX = Integer.compare(dx, 0);
-        int stepZ = Integer.compare(dz, 0);
-        int maxSteps = Math.max(Math.abs(dx), Math.abs(dz)) - 1;
-
-        // Pre-determine axis for efficiency
-        boolean useXAxis = Math.abs(dx) >= Math.abs(dz);
-        net.minecraft.core.Direction.Axis axis = useXAxis ?
-                net.minecraft.core.Direction.Axis.X : net.minecraft.core.Direction.Axis.Z;
-
-        // Create diagonal connection
-        for (int step = 1; step <= maxSteps; step++) {
-            net.minecraft.core.BlockPos connectionPos = trunkPos.offset(stepX * step, 0, stepZ * step);
-
-            if (pLevel.isStateAtPosition(connectionPos, BlockBehaviour.BlockStateBase::canBeReplaced)) {
-                net.minecraft.world.level.block.state.BlockState logState = pConfig.trunkProvider.getState(pRandom, connectionPos);
-
-                if (logState.hasProperty(net.minecraft.world.level.block.RotatedPillarBlock.AXIS)) {
-                    logState = logState.setValue(net.minecraft.world.level.block.RotatedPillarBlock.AXIS, axis);
-                }
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        LongIterator cells = exposedCells.iterator();
+        while (cells.hasNext()) {
+            long cell = cells.nextLong();
+            cursor.set(BlockPos.getX(cell), BlockPos.getY(cell), BlockPos.getZ(cell));
 
-                pBlockSetter.set(connectionPos, logState);
+            if (TreeShapeBuffer.isReplaceable(pLevel, cursor)) {
+                tryPlaceLeaf(pLevel, pBlockSetter, pRandom, pConfig, cursor);
             }
         }
     }
@@ -283,15 +268,20 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
      * Creates a dense, rounded layer of foliage with connected leaf placement
      */
     private void createDenseRoundedLayer(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom,
-                                         TreeConfiguration pConfig, net.minecraft.core.BlockPos layerCenter, int radius) {
+                                         TreeConfiguration pConfig, net.minecraft.core.BlockPos layerCenter, int radius,
+                                         int layer, EbonyTrunkPlacer.GenerationContext context) {
 
-        // First pass: determine which positions should have leaves
-        boolean[][] shouldPlaceLeaf = new boolean[radius * 2 + 1][radius * 2 + 1];
+        CanopyDiscs.Disc disc = CanopyDiscs.get(radius);
+        CanopyLayerMask mask = CanopyLayerMask.begin(disc);
 
+        // First pass: determine which positions should have leaves
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
-                double distance = Math.sqrt(x * x + z * z);
-                double adjustedDistance = distance + (pRandom.nextFloat() - 0.5f) * 0.8;
+                // The jitter is always rolled so the random sequence doesn't depend on the cache
+                float jitter = pRandom.nextFloat() - 0.5f;
+                if (!disc.reachable(x + radius, z + radius)) continue;
+
+                double adjustedDistance = disc.distance(x + radius, z + radius) + jitter * 0.8;
 
                 if (adjustedDistance <= radius) {
                     float centerDistance = (float) (adjustedDistance / radius);
@@ -302,19 +292,22 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
                     }
 
                     if (pRandom.nextFloat() < placementChance) {
-                        shouldPlaceLeaf[x + radius][z + radius] = true;
+                        mask.setLeaf(x + radius, z + radius);
                     }
                 }
             }
         }
 
-        // Second pass: ensure connectivity by filling gaps between isolated leaf clusters
-        ensureLeafConnectivity(shouldPlaceLeaf, radius);
+        // Second pass: keep only leaves connected to the trunk, filling small gaps between clusters
+        EbonyTreePhaseEvent connectivity = new EbonyTreePhaseEvent(EbonyTreePhaseEvent.CONNECTIVITY, layer);
+        connectivity.start(pLevel, pBlockSetter);
+        mask.connect(disc);
+        connectivity.finish(pLevel, pBlockSetter, layerCenter, 1, radius, context);
 
         // Third pass: actually place the leaves
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
-                if (shouldPlaceLeaf[x + radius][z + radius]) {
+                if (mask.isLeaf(x + radius, z + radius)) {
                     net.minecraft.core.BlockPos leafPos = layerCenter.offset(x, 0, z);
                     tryPlaceLeaf(pLevel, pBlockSetter, pRandom, pConfig, leafPos);
                 }
@@ -322,110 +315,31 @@ public class EbonyFoliagePlacer extends FoliagePlacer {
         }
     }
 
-    /**
-     * Ensures leaf connectivity by filling gaps between leaf clusters
-     */
-    private void ensureLeafConnectivity(boolean[][] shouldPlaceLeaf, int centerIdx) {
-        int size = centerIdx * 2 + 1;
-        boolean[][] connected = new boolean[size][size];
-
-        // Mark center area as connected (trunk area)
-        for (int x = Math.max(0, centerIdx - 1); x <= Math.min(size - 1, centerIdx + 1); x++) {
-            for (int z = Math.max(0, centerIdx - 1); z <= Math.min(size - 1, centerIdx + 1); z++) {
-                connected[x][z] = true;
-            }
-        }
-
-        // Iteratively expand connected areas and fill gaps
-        boolean changed = true;
-        int iterations = 0;
-        while (changed && iterations < 10) { // Prevent infinite loops
-            changed = false;
-            iterations++;
-
-            for (int x = 0; x < size; x++) {
-                for (int z = 0; z < size; z++) {
-                    if (shouldPlaceLeaf[x][z] && !connected[x][z]) {
-                        // Check if this leaf is adjacent to a connected area
-                        if (hasConnectedNeighbor(connected, x, z, size)) {
-                            connected[x][z] = true;
-                            changed = true;
-                        }
-                    }
-                }
-            }
-        }
-
-        // Fill small gaps between connected leaf areas to prevent isolation
-        for (int x = 1; x < size - 1; x++) {
-            for (int z = 1; z < size - 1; z++) {
-                if (!shouldPlaceLeaf[x][z]) {
-                    // Check if placing a leaf here would connect isolated areas
-                    int connectedNeighbors = 0;
-                    if (connected[x-1][z]) connectedNeighbors++;
-                    if (x < size-1 && connected[x+1][z]) connectedNeighbors++;
-                    if (connected[x][z-1]) connectedNeighbors++;
-                    if (z < size-1 && connected[x][z+1]) connectedNeighbors++;
-
-                    // If this position would connect multiple areas or fill a small gap
-                    if (connectedNeighbors >= 2) {
-                        double distanceFromCenter = Math.sqrt(Math.pow(x - centerIdx, 2) + Math.pow(z - centerIdx, 2));
-                        if (distanceFromCenter <= centerIdx) { // Only within canopy bounds
-                            shouldPlaceLeaf[x][z] = true;
-                            connected[x][z] = true;
-                        }
-                    }
-                }
-            }
-        }
-
-        // Remove leaves that are still not connected to prevent isolated decay
-        for (int x = 0; x < size; x++) {
-            for (int z = 0; z < size; z++) {
-                if (shouldPlaceLeaf[x][z] && !connected[x][z]) {
-                    shouldPlaceLeaf[x][z] = false;
-                }
-            }
-        }
-    }
-
-    /**
-     * Checks if a position has a connected neighbor
-     */
-    private boolean hasConnectedNeighbor(boolean[][] connected, int x, int z, int size) {
-        // Check 4-directional neighbors (cardinal directions)
-        if (x > 0 && connected[x-1][z]) return true;
-        if (x < size-1 && connected[x+1][z]) return true;
-        if (z > 0 && connected[x][z-1]) return true;
-        return z < size - 1 && connected[x][z + 1];
-    }
-
     /**
      * Creates sparse foliage below the main canopy with connectivity checking
      */
     private void createSparseUndercanopy(LevelSimulatedReader pLevel, FoliageSetter pBlockSetter, RandomSource pRandom,
                                          TreeConfiguration pConfig, net.minecraft.core.BlockPos centerPos, int radius) {
 
-        // First pass: determine potential leaf positions
-        boolean[][] shouldPlaceLeaf = new boolean[radius * 2 + 1][radius * 2 + 1];
+        CanopyDiscs.Disc disc = CanopyDiscs.get(radius);
+        CanopyLayerMask mask = CanopyLayerMask.begin(disc);
 
+        // First pass: determine potential leaf positions
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
-                double distance = Math.sqrt(x * x + z * z);
-
-                if (distance <= radius && pRandom.nextFloat() < 0.3f) {
-                    shouldPlaceLeaf[x + radius][z + radius] = true;
+                if (disc.contains(x + radius, z + radius) && pRandom.nextFloat() < 0.3f) {
+                    mask.setLeaf(x + radius, z + radius);
                 }
             }
         }
 
         // Ensure connectivity for undercanopy leaves
-        ensureLeafConnectivity(shouldPlaceLeaf, radius);
+        mask.connect(disc);
 
         // Place the connected leaves
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
-                if (shouldPlaceLeaf[x + radius][z + radius]) {
+                if (mask.isLeaf(x + radius, z + radius)) {
                     net.minecraft.core.BlockPos leafPos = centerPos.offset(x, 0, z);
                     tryPlaceLeaf(pLevel, pBlockSetter, pRandom, pConfig, leafPos);
                 }
@@ -0,0 +1,214 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import net.jeffd76.ebonytrees.block.growth.BlockedSaplingCache;
+import net.minecraft.core.BlockPos;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.levelgen.feature.TreeFeature;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraft.world.level.material.Fluids;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * One pregenerated ebony tree, stored as packed offsets from the trunk base with a palette index per block. Leaves
+ * already carry their final DISTANCE, so stamping is a straight copy with one of eight rotations/mirrors applied.
+ */
+public final class EbonyTreeTemplate {
+    static final int TRANSFORMS = 8;
+
+    // Offsets are packed as y, z, x in 10 bits each, so sorting the packed values sorts the cells bottom to top
+    private static final int COORD_BITS = 10;
+    private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+    private static final int COORD_BIAS = 1 << (COORD_BITS - 1);
+
+    // Same flags EbonyTreeFeature writes with: leaves are final, so neighbours don't need to be told
+    private static final int SET_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+
+    private static final Rotation[] ROTATIONS = Rotation.values();
+    private static final Mirror[] MIRRORS = {Mirror.NONE, Mirror.LEFT_RIGHT};
+
+    // Rows of {xx, xz, zx, zz}: mirror across Z first, then rotate about the trunk, matching StructureTemplate.transform
+    private static final int[][] TRANSFORM_MATRICES = new int[TRANSFORMS][];
+
+    static {
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            int mirror = MIRRORS[transform / ROTATIONS.length] == Mirror.LEFT_RIGHT ? -1 : 1;
+            TRANSFORM_MATRICES[transform] = switch (ROTATIONS[transform % ROTATIONS.length]) {
+                case NONE -> new int[]{1, 0, 0, mirror};
+                case CLOCKWISE_90 -> new int[]{0, -mirror, 1, 0};
+                case CLOCKWISE_180 -> new int[]{-1, 0, 0, -mirror};
+                case COUNTERCLOCKWISE_90 -> new int[]{0, mirror, -1, 0};
+            };
+        }
+    }
+
+    private final int[] cells;
+    private final byte[] states;
+    private final BlockState[][] palettes;
+    private final boolean[] waterloggable;
+    private final int minY;
+    private final int maxY;
+
+    private EbonyTreeTemplate(int[] cells, byte[] states, List<BlockState> palette, int minY, int maxY) {
+        this.cells = cells;
+        this.states = states;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.palettes = new BlockState[TRANSFORMS][palette.size()];
+        this.waterloggable = new boolean[palette.size()];
+
+        for (int i = 0; i < palette.size(); i++) {
+            BlockState state = palette.get(i);
+            this.waterloggable[i] = state.hasProperty(BlockStateProperties.WATERLOGGED);
+
+            for (int transform = 0; transform < TRANSFORMS; transform++) {
+                this.palettes[transform][i] = state.mirror(MIRRORS[transform / ROTATIONS.length])
+                        .rotate(ROTATIONS[transform % ROTATIONS.length]);
+            }
+        }
+    }
+
+    /**
+     * Captures a tree grown on open flat ground, with leaf DISTANCE already resolved by the shape buffer. The dirt
+     * under the trunk is left out since stamp() places it against the real terrain.
+     */
+    static EbonyTreeTemplate of(TreeShape pShape, BlockPos pOrigin) {
+        long dirtPos = pOrigin.below().asLong();
+
+        List<BlockState> palette = new ArrayList<>();
+        long[] packed = new long[pShape.size()];
+        int count = 0;
+        int minY = 0;
+        int maxY = 0;
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+        for (int i = 0; i < pShape.size(); i++) {
+            long pos = pShape.pos(i, cursor).asLong();
+            BlockState state = pShape.state(i);
+            if (pos == dirtPos && !state.is(BlockTags.LOGS)) continue;
+
+            int paletteIndex = palette.indexOf(state);
+            if (paletteIndex < 0) {
+                paletteIndex = palette.size();
+                palette.add(state);
+            }
+
+            int dx = BlockPos.getX(pos) - pOrigin.getX();
+            int dy = BlockPos.getY(pos) - pOrigin.getY();
+            int dz = BlockPos.getZ(pos) - pOrigin.getZ();
+            minY = Math.min(minY, dy);
+            maxY = Math.max(maxY, dy);
+
+            // Palette index rides in the low byte until the cells are sorted
+            packed[count++] = (long) pack(dx, dy, dz) << 8 | paletteIndex;
+        }
+
+        if (palette.size() > 256) {
+            throw new IllegalStateException("Ebony tree template uses more than 256 block states");
+        }
+
+        Arrays.sort(packed, 0, count);
+
+        int[] cells = new int[count];
+        byte[] states = new byte[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = (int) (packed[i] >>> 8);
+            states[i] = (byte) packed[i];
+        }
+
+        return new EbonyTreeTemplate(cells, states, palette, minY, maxY);
+    }
+
+    /**
+     * Height of the tree above its trunk base
+     */
+    public int height() {
+        return this.maxY;
+    }
+
+    /**
+     * Number of blocks in the template
+     */
+    public int size() {
+        return this.cells.length;
+    }
+
+    /**
+     * Stamps the template at the origin with the given transform (0-7). Returns false without touching the level if
+     * any block above the roots would land on something other than free space, or any block would land outside the
+     * region the level lets features write to, so the caller can fall back to procedural placement.
+     */
+    boolean stamp(WorldGenLevel pLevel, RandomSource pRandom, BlockPos pOrigin, TreeConfiguration pConfig, int pTransform) {
+        if (pOrigin.getY() + this.minY < pLevel.getMinBuildHeight() + 1 || pOrigin.getY() + this.maxY + 1 > pLevel.getMaxBuildHeight()) {
+            return false;
+        }
+
+        int[] matrix = TRANSFORM_MATRICES[pTransform];
+        BlockState[] palette = this.palettes[pTransform];
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+        // Same requirement placeLog and tryPlaceLeaf have; roots below the base are placed unconditionally. A variant
+        // reaching past the writable region isn't stamped at all, the procedural fallback clips itself to the region.
+        for (int cell : this.cells) {
+            moveTo(cursor, pOrigin, cell, matrix);
+            if (!TreeShapeBuffer.isInWriteRegion(pLevel, cursor) || unpackY(cell) >= 0 && !TreeFeature.validTreePos(pLevel, cursor)) {
+                return false;
+            }
+        }
+
+        BiConsumer<BlockPos, BlockState> setter = (pos, state) -> {
+            pLevel.setBlock(pos, state, SET_FLAGS);
+            BlockedSaplingCache.onBlockWritten(pLevel, pos);
+        };
+        EbonyTrunkPlacer.placeDirt(pLevel, setter, pRandom, pOrigin.below(), pConfig);
+
+        for (int i = 0; i < this.cells.length; i++) {
+            moveTo(cursor, pOrigin, this.cells[i], matrix);
+
+            int paletteIndex = this.states[i] & 0xFF;
+            BlockState state = palette[paletteIndex];
+            if (this.waterloggable[paletteIndex]) {
+                state = state.setValue(BlockStateProperties.WATERLOGGED,
+                        pLevel.isFluidAtPosition(cursor, fluid -> fluid.isSourceOfType(Fluids.WATER)));
+            }
+
+            setter.accept(cursor, state);
+        }
+
+        return true;
+    }
+
+    private static BlockPos moveTo(BlockPos.MutableBlockPos pCursor, BlockPos pOrigin, int pCell, int[] pMatrix) {
+        int x = unpackX(pCell);
+        int z = unpackZ(pCell);
+        return pCursor.set(pOrigin.getX() + pMatrix[0] * x + pMatrix[1] * z,
+                pOrigin.getY() + unpackY(pCell),
+                pOrigin.getZ() + pMatrix[2] * x + pMatrix[3] * z);
+    }
+
+    private static int pack(int pX, int pY, int pZ) {
+        return (pY + COORD_BIAS) << (COORD_BITS * 2) | (pZ + COORD_BIAS) << COORD_BITS | (pX + COORD_BIAS);
+    }
+
+    private static int unpackX(int pCell) {
+        return (pCell & COORD_MASK) - COORD_BIAS;
+    }
+
+    private static int unpackZ(int pCell) {
+        return (pCell >> COORD_BITS & COORD_MASK) - COORD_BIAS;
+    }
+
+    private static int unpackY(int pCell) {
+        return (pCell >> (COORD_BITS * 2) & COORD_MASK) - COORD_BIAS;
+    }
+}
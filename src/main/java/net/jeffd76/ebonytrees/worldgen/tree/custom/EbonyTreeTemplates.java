@@ -0,0 +1,168 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import net.jeffd76.ebonytrees.config.ModCommonConfigs;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LevelSimulatedReader;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraft.world.level.material.FluidState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Library of pregenerated variants for one tree configuration, used by the STAMPED generation mode. Variants are
+ * grown once by EbonyTreeFeature.computeShape on flat open ground, sorted by height and split into equally sized
+ * small, medium and large classes, so a uniform pick keeps the procedural height distribution.
+ */
+public final class EbonyTreeTemplates {
+    public static final int SIZE_CLASSES = 3;
+
+    // Fixed so every server builds the same variants for the same configuration
+    private static final long BUILD_SEED = 0x45626F6E79L;
+    private static final int GROUND_Y = 64;
+
+    private static final Map<TreeConfiguration, EbonyTreeTemplates> LIBRARIES = new ConcurrentHashMap<>();
+
+    private final TreeConfiguration config;
+    private final EbonyTreeTemplate[][] variants;
+
+    private EbonyTreeTemplates(TreeConfiguration config, EbonyTreeTemplate[][] variants) {
+        this.config = config;
+        this.variants = variants;
+    }
+
+    /**
+     * Returns the library for the configuration, building it with the configured variant count on first use. The
+     * build runs outside the map's lock so worldgen threads after other configurations aren't held up; threads racing
+     * on the same configuration build the same variants and the first one stored is kept.
+     */
+    public static EbonyTreeTemplates get(EbonyTreeFeature pFeature, TreeConfiguration pConfig) {
+        EbonyTreeTemplates library = LIBRARIES.get(pConfig);
+        if (library != null) {
+            return library;
+        }
+
+        EbonyTreeTemplates built = build(pFeature, pConfig, ModCommonConfigs.TEMPLATE_VARIANTS.get());
+        library = LIBRARIES.putIfAbsent(pConfig, built);
+        return library != null ? library : built;
+    }
+
+    /**
+     * Drops every built library, e.g. when the server stops and the configuration may change
+     */
+    public static void clear() {
+        LIBRARIES.clear();
+    }
+
+    /**
+     * Grows variantsPerClass * SIZE_CLASSES trees from fixed seeds through the feature's own shape computation and
+     * captures each as a template
+     */
+    public static EbonyTreeTemplates build(EbonyTreeFeature pFeature, TreeConfiguration pConfig, int pVariantsPerClass) {
+        FlatGround ground = new FlatGround();
+        BlockPos origin = new BlockPos(0, GROUND_Y, 0);
+        RandomSource random = RandomSource.create(BUILD_SEED);
+
+        int total = pVariantsPerClass * SIZE_CLASSES;
+        List<EbonyTreeTemplate> pool = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            random.setSeed(BUILD_SEED + i);
+            TreeShape shape = pFeature.computeShape(ground, random, origin, pConfig);
+            if (shape == null) {
+                throw new IllegalStateException("Ebony tree variant " + i + " didn't grow on open ground");
+            }
+            pool.add(EbonyTreeTemplate.of(shape, origin));
+        }
+
+        // Shortest to tallest, then cut into equally sized classes
+        pool.sort(Comparator.comparingInt(EbonyTreeTemplate::height));
+        EbonyTreeTemplate[][] variants = new EbonyTreeTemplate[SIZE_CLASSES][];
+        for (int sizeClass = 0; sizeClass < SIZE_CLASSES; sizeClass++) {
+            variants[sizeClass] = pool.subList(sizeClass * pVariantsPerClass, (sizeClass + 1) * pVariantsPerClass)
+                    .toArray(new EbonyTreeTemplate[0]);
+        }
+
+        return new EbonyTreeTemplates(pConfig, variants);
+    }
+
+    /**
+     * Variants of one size class, 0 being the smallest
+     */
+    public EbonyTreeTemplate[] sizeClass(int pSizeClass) {
+        return this.variants[pSizeClass];
+    }
+
+    /**
+     * Total number of variants across all size classes
+     */
+    public int size() {
+        return Arrays.stream(this.variants).mapToInt(sizeClass -> sizeClass.length).sum();
+    }
+
+    /**
+     * Picks a size class, a variant and a rotation/mirror from the random source and stamps it at the origin.
+     * Returns false if the variant didn't fit, leaving the level untouched.
+     */
+    public boolean stamp(WorldGenLevel pLevel, RandomSource pRandom, BlockPos pOrigin) {
+        EbonyTreeTemplate[] sizeClass = this.variants[pRandom.nextInt(SIZE_CLASSES)];
+        EbonyTreeTemplate template = sizeClass[pRandom.nextInt(sizeClass.length)];
+        return template.stamp(pLevel, pRandom, pOrigin, this.config, pRandom.nextInt(EbonyTreeTemplate.TRANSFORMS));
+    }
+
+    /**
+     * Open flat ground the variants are grown on: dirt below GROUND_Y, air above, with the overworld's build height
+     */
+    private static final class FlatGround implements LevelSimulatedReader, LevelHeightAccessor {
+        private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+        private static final BlockState GROUND = Blocks.DIRT.defaultBlockState();
+
+        private static BlockState getBlockState(BlockPos pPos) {
+            return pPos.getY() < GROUND_Y ? GROUND : AIR;
+        }
+
+        @Override
+        public boolean isStateAtPosition(BlockPos pPos, Predicate<BlockState> pState) {
+            return pState.test(getBlockState(pPos));
+        }
+
+        @Override
+        public boolean isFluidAtPosition(BlockPos pPos, Predicate<FluidState> pPredicate) {
+            return pPredicate.test(getBlockState(pPos).getFluidState());
+        }
+
+        @Override
+        public <T extends BlockEntity> Optional<T> getBlockEntity(BlockPos pPos, BlockEntityType<T> pBlockEntityType) {
+            return Optional.empty();
+        }
+
+        @Override
+        public BlockPos getHeightmapPos(Heightmap.Types pHeightmapType, BlockPos pPos) {
+            return new BlockPos(pPos.getX(), GROUND_Y, pPos.getZ());
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinBuildHeight() {
+            return -64;
+        }
+    }
+}
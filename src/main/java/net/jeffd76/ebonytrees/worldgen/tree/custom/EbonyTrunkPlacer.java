@@ -4,13 +4,18 @@ import com.google.common.collect.ImmutableList;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import net.jeffd76.ebonytrees.worldgen.tree.ModTrunkPlacerTypes;
+import net.jeffd76.ebonytrees.worldgen.tree.jfr.EbonyTreePhaseEvent;
+import net.jeffd76.ebonytrees.worldgen.tree.jfr.EbonyTrunkEvent;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.util.RandomSource;
+import net.minecraft.util.StringRepresentable;
+import net.minecraft.world.level.LevelReader;
 import net.minecraft.world.level.LevelSimulatedReader;
+import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.RotatedPillarBlock;
-import net.minecraft.world.level.block.state.BlockBehaviour;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.feature.Feature;
 import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
 import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacer;
 import net.minecraft.world.level.levelgen.feature.trunkplacers.TrunkPlacer;
@@ -22,7 +27,9 @@ import java.util.function.BiConsumer;
 public class EbonyTrunkPlacer extends TrunkPlacer {
 
     public static final Codec<EbonyTrunkPlacer> CODEC = RecordCodecBuilder.create(ebonyTrunkPlacerInstance ->
-            trunkPlacerParts(ebonyTrunkPlacerInstance).apply(ebonyTrunkPlacerInstance, EbonyTrunkPlacer::new));
+            trunkPlacerParts(ebonyTrunkPlacerInstance).and(GenerationContext.CODEC
+                    .optionalFieldOf("context", GenerationContext.WORLDGEN).forGetter(tp -> tp.context))
+                    .apply(ebonyTrunkPlacerInstance, EbonyTrunkPlacer::new));
 
     // Realistic ebony tree variables
     private static final int MIN_TREE_HEIGHT = 8;
@@ -55,10 +62,16 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
             {Direction.SOUTH, Direction.WEST}  // Southwest
     };
 
-    // Flag to check if we're in world generation context (will be determined dynamically)
+    // Whether this placer grows world generation trees or sapling trees, set explicitly by the configured feature
+    private final GenerationContext context;
 
-    public EbonyTrunkPlacer(int pBaseHeight, int pHeightRandA, int pHeightRandB) {
+    public EbonyTrunkPlacer(int pBaseHeight, int pHeightRandA, int pHeightRandB, GenerationContext context) {
         super(pBaseHeight, pHeightRandA, pHeightRandB);
+        this.context = context;
+    }
+
+    public GenerationContext context() {
+        return this.context;
     }
 
     @Override
@@ -69,16 +82,50 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
     @Override
     public List<FoliagePlacer.FoliageAttachment> placeTrunk(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
                                                             RandomSource pRandom, int pFreeTreeHeight, BlockPos pPos, TreeConfiguration pConfig) {
-        // Determine if this is world generation or sapling growth
-        // World generation typically has larger free tree heights and uses LevelSimulatedReader
-        boolean isWorldGen = determineWorldGenContext(pLevel, pFreeTreeHeight);
+        // Already writing into a shape buffer owned by the caller
+        if (pBlockSetter instanceof TreeShapeBuffer) {
+            return buildTrunk(pLevel, pBlockSetter, pRandom, pFreeTreeHeight, pPos, pConfig);
+        }
+
+        // Compute the whole trunk first, then write it to the level in one section-ordered pass
+        TreeShapeBuffer buffer = TreeShapeBuffer.begin(pLevel, pPos);
+        try {
+            List<FoliagePlacer.FoliageAttachment> attachments =
+                    buildTrunk(buffer.reader(), buffer, pRandom, pFreeTreeHeight, pPos, pConfig);
+            buffer.flush(pBlockSetter);
+            return attachments;
+        } finally {
+            buffer.end();
+        }
+    }
+
+    /**
+     * Places the trunk, roots, buttresses and branches through the given setter. Positions handed to the setter are
+     * mutable cursors; the shape buffer copies what it needs. Reports an EbonyTrunkEvent, with phases for the roots
+     * and buttresses, when a JFR recording enables them.
+     */
+    private List<FoliagePlacer.FoliageAttachment> buildTrunk(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
+                                                             RandomSource pRandom, int pFreeTreeHeight, BlockPos pPos, TreeConfiguration pConfig) {
+        // World generation trees get the full root system, sapling trees skip it
+        boolean isWorldGen = this.context == GenerationContext.WORLDGEN;
+
+        EbonyTrunkEvent event = new EbonyTrunkEvent();
+        event.start(pLevel, pBlockSetter);
 
         // Set dirt foundation
-        setDirtAt(pLevel, pBlockSetter, pRandom, pPos.below(), pConfig);
+        placeDirt(pLevel, pBlockSetter, pRandom, pPos.below(), pConfig);
+
+        // Log states for each axis, resolved once for the whole tree
+        LogStates logs = LogStates.resolve(pConfig, pRandom, pPos);
+        BlockPos.MutableBlockPos trunkPos = new BlockPos.MutableBlockPos();
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
 
         // Add root system only for world generation (not sapling growth)
         if (isWorldGen) {
-            addRoots(pRandom, pPos, pBlockSetter, pConfig, HORIZONTAL_DIRECTIONS, true);
+            EbonyTreePhaseEvent roots = new EbonyTreePhaseEvent(EbonyTreePhaseEvent.ROOTS);
+            roots.start(pLevel, pBlockSetter);
+            addRoots(pLevel, pRandom, pPos, pBlockSetter, logs, cursor, true);
+            roots.finish(pLevel, pBlockSetter, pPos, MAX_ROOT_DEPTH, MAX_ROOT_LENGTH + 1, this.context);
         }
 
         // Calculate realistic height with simplified logic
@@ -108,106 +155,101 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
             }
         }
 
+        EbonyTreePhaseEvent buttresses = new EbonyTreePhaseEvent(EbonyTreePhaseEvent.BUTTRESSES);
+        buttresses.start(pLevel, pBlockSetter);
+
         // Single trunk building loop with integrated features
         for (int i = 0; i < totalTrunkHeight; i++) {
-            BlockPos currentPos = pPos.above(i);
+            trunkPos.set(pPos.getX(), pPos.getY() + i, pPos.getZ());
 
             // Place main trunk
-            placeLog(pLevel, pBlockSetter, pRandom, currentPos, pConfig);
+            placeLogAt(pLevel, pBlockSetter, trunkPos, logs.y());
 
             // Apply trunk features based on height (only for base trunk, not extension)
             if (i < baseTrunkHeight) {
-                applyTrunkFeatures(pLevel, pBlockSetter, pRandom, currentPos, pConfig, i, hasButtress, buttressHeights);
+                applyTrunkFeatures(pLevel, pBlockSetter, pRandom, trunkPos, logs, cursor, i, hasButtress, buttressHeights);
 
                 // Place top buttresses in the upper portion of the trunk (last 3 blocks before foliage)
                 if (i >= baseTrunkHeight - 10) {
-                    addTopButtressesAtHeight(pLevel, pBlockSetter, pRandom, currentPos, pConfig,
+                    addTopButtressesAtHeight(pLevel, pBlockSetter, trunkPos, logs, cursor,
                             hasTopButtress, topButtressLengths, baseTrunkHeight - i);
                 }
             }
         }
 
+        buttresses.finish(pLevel, pBlockSetter, pPos, totalTrunkHeight, 1, this.context);
+        event.finish(pLevel, pBlockSetter, pPos, totalTrunkHeight, 0, this.context);
+
         // Return foliage attachment at the base trunk height (where canopy starts)
         // The extended trunk will be inside the canopy
         return ImmutableList.of(new FoliagePlacer.FoliageAttachment(pPos.above(baseTrunkHeight), 0, false));
     }
 
     /**
-     * Determines if we're in world generation context vs sapling growth
+     * Same as TrunkPlacer.setDirtAt, but only runs Forge's onTreeGrow hook when the level can actually be read as a
+     * LevelReader. setDirtAt casts unconditionally, which breaks the placer on simulated levels (benchmarks, previews).
      */
-    private boolean determineWorldGenContext(LevelSimulatedReader pLevel, int pFreeTreeHeight) {
-        // Multiple indicators can help determine the context:
-
-        // 1. World generation typically has much larger free tree heights
-        if (pFreeTreeHeight > 20) {
-            return true; // Very likely world generation
+    static void placeDirt(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
+                                  RandomSource pRandom, BlockPos pPos, TreeConfiguration pConfig) {
+        if (TreeShapeBuffer.underlyingLevel(pLevel) instanceof LevelReader reader &&
+                reader.getBlockState(pPos).onTreeGrow(reader, pBlockSetter, pRandom, pPos, pConfig)) {
+            return;
         }
 
-        // 2. Sapling growth usually has smaller, more constrained heights
-        if (pFreeTreeHeight < 8) {
-            return false; // Very likely sapling growth
-        }
-
-        // 3. Check the type of LevelSimulatedReader
-        // World generation often uses specific reader types
-        String readerClassName = pLevel.getClass().getSimpleName();
-
-        // Common world generation reader classes
-        if (readerClassName.contains("WorldGen") ||
-                readerClassName.contains("ChunkGenerator") ||
-                readerClassName.contains("FeaturePlaceContext")) {
-            return true;
+        if (pConfig.forceDirt || !pLevel.isStateAtPosition(pPos, state -> Feature.isDirt(state) &&
+                !state.is(Blocks.GRASS_BLOCK) && !state.is(Blocks.MYCELIUM))) {
+            pBlockSetter.accept(pPos, pConfig.dirtProvider.getState(pRandom, pPos));
         }
+    }
 
-        // Common sapling growth reader classes
-        if (readerClassName.contains("Level") && !readerClassName.contains("Simulated")) {
-            return false;
+    /**
+     * Same as TrunkPlacer.placeLog, but with the log state already resolved
+     */
+    private void placeLogAt(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
+                            BlockPos pPos, BlockState pState) {
+        if (validTreePos(pLevel, pPos)) {
+            pBlockSetter.accept(pPos, pState);
         }
-
-        // Default assumption based on height for edge cases
-        return pFreeTreeHeight >= 12;
     }
 
     /**
      * Adds a root system beneath the tree
      */
-    public void addRoots(RandomSource rand, BlockPos pos,
-                         BiConsumer<BlockPos, BlockState> consumer, TreeConfiguration baseTreeFeatureConfig,
-                         Direction[] extendedDirs, boolean isWorldGen) {
-        BlockState rootState = baseTreeFeatureConfig.trunkProvider.getState(rand, pos);
-
+    private void addRoots(LevelSimulatedReader level, RandomSource rand, BlockPos pos, BiConsumer<BlockPos, BlockState> consumer,
+                          LogStates logs, BlockPos.MutableBlockPos cursor, boolean isWorldGen) {
         if (rand.nextFloat() < ROOT_CHANCE) {
             // Start placing roots from below the trunk base
-            BlockPos rootStartPos = pos.below();
+            int rootX = pos.getX();
+            int rootY = pos.getY() - 1;
+            int rootZ = pos.getZ();
 
             // Place initial root block
-            consumer.accept(rootStartPos, rootState);
+            consumer.accept(cursor.set(rootX, rootY, rootZ), logs.y());
 
             if (isWorldGen) {
                 // Extend roots downward (up to MAX_ROOT_DEPTH blocks)
-                BlockPos currentPos = rootStartPos;
-                for (int i = 0; i < MAX_ROOT_DEPTH; i++) {
-                    currentPos = currentPos.below();
-                    consumer.accept(currentPos, rootState);
+                for (int i = 1; i <= MAX_ROOT_DEPTH; i++) {
+                    consumer.accept(cursor.set(rootX, rootY - i, rootZ), logs.y());
                 }
 
                 // Add lateral roots extending from various depths
-                for (Direction direction : extendedDirs) {
+                for (Direction direction : HORIZONTAL_DIRECTIONS) {
+                    int startX = rootX + direction.getStepX();
+                    int startZ = rootZ + direction.getStepZ();
+
                     // Place roots at different depths for more natural look
-                    placeRotatedRoot(rand, rootStartPos.relative(direction),
-                            consumer, baseTreeFeatureConfig, direction);
+                    placeRotatedRoot(level, rand, startX, rootY, startZ, consumer, logs, cursor, direction);
 
                     // Sometimes add deeper lateral roots
                     if (rand.nextFloat() < 0.6f) {
-                        placeRotatedRoot(rand, rootStartPos.below().relative(direction),
-                                consumer, baseTreeFeatureConfig, direction);
+                        placeRotatedRoot(level, rand, startX, rootY - 1, startZ, consumer, logs, cursor, direction);
                     }
                 }
 
                 // Add diagonal roots with 25% chance each
                 for (Direction[] diagonalPair : DIAGONAL_DIRECTIONS) {
                     if (rand.nextFloat() < DIAGONAL_ROOT_CHANCE) {
-                        placeDiagonalRoot(rand, rootStartPos, consumer, baseTreeFeatureConfig, diagonalPair);
+                        placeDiagonalRoot(level, rand, rootX, rootY, rootZ, consumer, logs, cursor, diagonalPair);
                     }
                 }
 
@@ -217,28 +259,29 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
     }
 
     /**
-     * Places a root extending in a specific direction
+     * Places a root extending in a specific direction. The root ends early rather than crossing out of the writable
+     * region.
      */
-    private void placeRotatedRoot(RandomSource rand, BlockPos startPos,
-                                  BiConsumer<BlockPos, BlockState> consumer, TreeConfiguration config,
-                                  Direction direction) {
-        // Create root state with proper axis alignment
-        BlockState rootState = config.trunkProvider.getState(rand, startPos)
-                .setValue(RotatedPillarBlock.AXIS, direction.getAxis());
+    private void placeRotatedRoot(LevelSimulatedReader level, RandomSource rand, int startX, int startY, int startZ,
+                                  BiConsumer<BlockPos, BlockState> consumer, LogStates logs,
+                                  BlockPos.MutableBlockPos cursor, Direction direction) {
+        // Root state with proper axis alignment
+        BlockState rootState = logs.forAxis(direction.getAxis());
 
         // Extend root 1-3 blocks in the given direction
         int rootLength = 1 + rand.nextInt(MAX_ROOT_LENGTH);
 
         for (int i = 1; i <= rootLength; i++) {
-            BlockPos rootPos = startPos.relative(direction, i);
+            int rootX = startX + direction.getStepX() * i;
+            int rootZ = startZ + direction.getStepZ() * i;
+            if (!TreeShapeBuffer.isWritable(level, cursor.set(rootX, startY, rootZ))) break;
 
             // Place root block - be less restrictive about placement
-            consumer.accept(rootPos, rootState);
+            consumer.accept(cursor, rootState);
 
             // Occasionally place a root going down from lateral roots
             if (i == rootLength && rand.nextFloat() < 0.4f) {
-                BlockPos deeperRoot = rootPos.below();
-                consumer.accept(deeperRoot, rootState);
+                consumer.accept(cursor.set(rootX, startY - 1, rootZ), rootState);
             }
         }
     }
@@ -247,18 +290,17 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
      * Adds top buttresses at specific height during trunk building
      */
     private void addTopButtressesAtHeight(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
-                                          RandomSource pRandom, BlockPos currentPos, TreeConfiguration pConfig,
+                                          BlockPos currentPos, LogStates logs, BlockPos.MutableBlockPos cursor,
                                           boolean[] hasTopButtress, int[] topButtressLengths, int remainingHeight) {
 
         // Check each direction for top buttress placement
         for (int dirIndex = 0; dirIndex < HORIZONTAL_DIRECTIONS.length; dirIndex++) {
             if (hasTopButtress[dirIndex] && remainingHeight <= topButtressLengths[dirIndex]) {
-                Direction direction = HORIZONTAL_DIRECTIONS[dirIndex];
-                BlockPos buttressPos = currentPos.relative(direction);
+                cursor.setWithOffset(currentPos, HORIZONTAL_DIRECTIONS[dirIndex]);
 
                 // Place buttress block if position is suitable
-                if (pLevel.isStateAtPosition(buttressPos, BlockBehaviour.BlockStateBase::canBeReplaced)) {
-                    placeLog(pLevel, pBlockSetter, pRandom, buttressPos, pConfig);
+                if (TreeShapeBuffer.isReplaceable(pLevel, cursor)) {
+                    placeLogAt(pLevel, pBlockSetter, cursor, logs.y());
                 }
             }
         }
@@ -267,30 +309,32 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
 
 
     /**
-     * Places a diagonal root extending in two directions (e.g., northeast, southwest)
+     * Places a diagonal root extending in two directions (e.g., northeast, southwest). Like the straight roots, it ends
+     * early rather than crossing out of the writable region.
      */
-    private void placeDiagonalRoot(RandomSource rand, BlockPos startPos,
-                                   BiConsumer<BlockPos, BlockState> consumer, TreeConfiguration config,
-                                   Direction[] diagonalPair) {
-        // Create root state - use the first direction's axis for consistency
-        BlockState rootState = config.trunkProvider.getState(rand, startPos)
-                .setValue(RotatedPillarBlock.AXIS, diagonalPair[0].getAxis());
+    private void placeDiagonalRoot(LevelSimulatedReader level, RandomSource rand, int startX, int startY, int startZ,
+                                   BiConsumer<BlockPos, BlockState> consumer, LogStates logs,
+                                   BlockPos.MutableBlockPos cursor, Direction[] diagonalPair) {
+        // Root state - use the first direction's axis for consistency
+        BlockState rootState = logs.forAxis(diagonalPair[0].getAxis());
+        int stepX = diagonalPair[0].getStepX() + diagonalPair[1].getStepX();
+        int stepZ = diagonalPair[0].getStepZ() + diagonalPair[1].getStepZ();
 
         // Diagonal root length is typically shorter (1-2 blocks)
         int rootLength = 1 + rand.nextInt(2);
 
-        BlockPos currentPos = startPos;
         for (int i = 1; i <= rootLength; i++) {
             // Move diagonally by applying both directions
-            currentPos = currentPos.relative(diagonalPair[0]).relative(diagonalPair[1]);
+            int rootX = startX + stepX * i;
+            int rootZ = startZ + stepZ * i;
+            if (!TreeShapeBuffer.isWritable(level, cursor.set(rootX, startY, rootZ))) break;
 
             // Place root block
-            consumer.accept(currentPos, rootState);
+            consumer.accept(cursor, rootState);
 
             // Occasionally place a root going down from the diagonal root tip
             if (i == rootLength && rand.nextFloat() < 0.3f) {
-                BlockPos deeperRoot = currentPos.below();
-                consumer.accept(deeperRoot, rootState);
+                consumer.accept(cursor.set(rootX, startY - 1, rootZ), rootState);
             }
         }
     }
@@ -311,18 +355,18 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
      * Unified method to apply all trunk features based on height
      */
     private void applyTrunkFeatures(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
-                                    RandomSource pRandom, BlockPos pPos, TreeConfiguration pConfig,
+                                    RandomSource pRandom, BlockPos pPos, LogStates logs, BlockPos.MutableBlockPos cursor,
                                     int currentHeight, boolean hasButtress, int[] buttressHeights) {
 
         // Buttressed base - now with individual heights per direction
         if (hasButtress) {
-            addButtressFeatures(pLevel, pBlockSetter, pRandom, pPos, pConfig, currentHeight, buttressHeights);
+            addButtressFeatures(pLevel, pBlockSetter, pPos, logs, cursor, currentHeight, buttressHeights);
         }
 
         // Minimal branching
         if (currentHeight >= MIN_BRANCH_HEIGHT && currentHeight % 3 == 0 &&
                 pRandom.nextFloat() < BRANCH_CHANCE) {
-            addMinimalBranches(pLevel, pBlockSetter, pRandom, pPos, pConfig);
+            addMinimalBranches(pLevel, pBlockSetter, pRandom, pPos, logs, cursor);
         }
     }
 
@@ -330,19 +374,16 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
      * Enhanced buttress creation with individual heights per direction
      */
     private void addButtressFeatures(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
-                                     RandomSource pRandom, BlockPos pPos, TreeConfiguration pConfig,
+                                     BlockPos pPos, LogStates logs, BlockPos.MutableBlockPos cursor,
                                      int currentHeight, int[] buttressHeights) {
 
         // Check each direction individually with its own height
         for (int dirIndex = 0; dirIndex < HORIZONTAL_DIRECTIONS.length; dirIndex++) {
-            Direction direction = HORIZONTAL_DIRECTIONS[dirIndex];
-            int buttressHeight = buttressHeights[dirIndex];
-
             // Only place buttress if current height is within this direction's buttress height
-            if (currentHeight < buttressHeight) {
-                BlockPos buttressPos = pPos.relative(direction);
-                if (pLevel.isStateAtPosition(buttressPos, BlockBehaviour.BlockStateBase::canBeReplaced)) {
-                    placeLog(pLevel, pBlockSetter, pRandom, buttressPos, pConfig);
+            if (currentHeight < buttressHeights[dirIndex]) {
+                cursor.setWithOffset(pPos, HORIZONTAL_DIRECTIONS[dirIndex]);
+                if (TreeShapeBuffer.isReplaceable(pLevel, cursor)) {
+                    placeLogAt(pLevel, pBlockSetter, cursor, logs.y());
                 }
             }
         }
@@ -352,7 +393,7 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
      * Streamlined minimal branching
      */
     private void addMinimalBranches(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
-                                    RandomSource pRandom, BlockPos pPos, TreeConfiguration pConfig) {
+                                    RandomSource pRandom, BlockPos pPos, LogStates logs, BlockPos.MutableBlockPos cursor) {
 
         int branchCount = pRandom.nextInt(3); // 0, 1, or 2 branches
 
@@ -361,7 +402,7 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
             int branchLength = pRandom.nextInt(2, 4); // 2-3 blocks
 
             // Create branch in single direction
-            createBranchInDirection(pLevel, pBlockSetter, pRandom, pPos, pConfig, direction, branchLength);
+            createBranchInDirection(pLevel, pBlockSetter, pPos, logs, cursor, direction, branchLength);
         }
     }
 
@@ -369,20 +410,65 @@ public class EbonyTrunkPlacer extends TrunkPlacer {
      * Optimized branch creation in specific direction
      */
     private void createBranchInDirection(LevelSimulatedReader pLevel, BiConsumer<BlockPos, BlockState> pBlockSetter,
-                                         RandomSource pRandom, BlockPos startPos, TreeConfiguration pConfig,
+                                         BlockPos startPos, LogStates logs, BlockPos.MutableBlockPos cursor,
                                          Direction direction, int length) {
 
-        // Pre-calculate branch state with correct axis
-        BlockState branchTemplate = pConfig.trunkProvider.getState(pRandom, startPos)
-                .setValue(RotatedPillarBlock.AXIS, direction.getAxis());
+        // Branch state with correct axis
+        BlockState branchTemplate = logs.forAxis(direction.getAxis());
 
         for (int j = 1; j <= length; j++) {
-            BlockPos branchPos = startPos.relative(direction, j);
-            if (pLevel.isStateAtPosition(branchPos, BlockBehaviour.BlockStateBase::canBeReplaced)) {
-                pBlockSetter.accept(branchPos, branchTemplate);
+            cursor.setWithOffset(startPos, direction.getStepX() * j, 0, direction.getStepZ() * j);
+            if (TreeShapeBuffer.isReplaceable(pLevel, cursor)) {
+                pBlockSetter.accept(cursor, branchTemplate);
             } else {
                 break; // Stop if we hit an obstacle
             }
         }
     }
+
+    /**
+     * The trunk provider's state for each log axis. Resolved once per tree, which is exact for the simple state
+     * provider the ebony features use.
+     */
+    private record LogStates(BlockState x, BlockState y, BlockState z) {
+        static LogStates resolve(TreeConfiguration pConfig, RandomSource pRandom, BlockPos pPos) {
+            BlockState state = pConfig.trunkProvider.getState(pRandom, pPos);
+            if (!state.hasProperty(RotatedPillarBlock.AXIS)) {
+                return new LogStates(state, state, state);
+            }
+
+            return new LogStates(state.setValue(RotatedPillarBlock.AXIS, Direction.Axis.X),
+                    state.setValue(RotatedPillarBlock.AXIS, Direction.Axis.Y),
+                    state.setValue(RotatedPillarBlock.AXIS, Direction.Axis.Z));
+        }
+
+        BlockState forAxis(Direction.Axis pAxis) {
+            return switch (pAxis) {
+                case X -> this.x;
+                case Y -> this.y;
+                case Z -> this.z;
+            };
+        }
+    }
+
+    /**
+     * Which kind of tree the placer grows. Set in the configured feature, so no guessing is needed at placement time.
+     */
+    public enum GenerationContext implements StringRepresentable {
+        WORLDGEN("worldgen"),
+        SAPLING("sapling");
+
+        public static final Codec<GenerationContext> CODEC = StringRepresentable.fromEnum(GenerationContext::values);
+
+        private final String name;
+
+        GenerationContext(String pName) {
+            this.name = pName;
+        }
+
+        @Override
+        public String getSerializedName() {
+            return this.name;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LevelSimulatedReader;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.material.FluidState;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Read-only copy of the chunk sections around a tree origin, covering the same box as TreeShapeBuffer, so a tree
+ * shape can be computed away from the server thread. Sections are copied straight from the chunk's paletted
+ * containers. Anything outside the box or in a chunk that wasn't loaded reads as a barrier, so the tree treats it as
+ * blocked.
+ */
+public final class LevelSnapshot implements LevelSimulatedReader, LevelHeightAccessor {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+    private static final BlockState BLOCKED = Blocks.BARRIER.defaultBlockState();
+
+    private final int minBuildHeight;
+    private final int height;
+    private final int minSectionX;
+    private final int minSectionY;
+    private final int minSectionZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final PalettedContainer<BlockState>[] sections;
+    private final boolean[] loaded;
+
+    private final BlockPos overridePos;
+    private final BlockState overrideState;
+
+    @SuppressWarnings("unchecked")
+    private LevelSnapshot(ServerLevel pLevel, BlockPos pOrigin, BlockState pOriginState) {
+        this.minBuildHeight = pLevel.getMinBuildHeight();
+        this.height = pLevel.getHeight();
+        this.minSectionX = SectionPos.blockToSectionCoord(pOrigin.getX() - TreeShapeBuffer.HORIZONTAL_RADIUS);
+        this.minSectionY = SectionPos.blockToSectionCoord(pOrigin.getY() - TreeShapeBuffer.DEPTH_BELOW);
+        this.minSectionZ = SectionPos.blockToSectionCoord(pOrigin.getZ() - TreeShapeBuffer.HORIZONTAL_RADIUS);
+        this.sizeX = SectionPos.blockToSectionCoord(pOrigin.getX() + TreeShapeBuffer.HORIZONTAL_RADIUS) - this.minSectionX + 1;
+        this.sizeY = SectionPos.blockToSectionCoord(pOrigin.getY() + TreeShapeBuffer.HEIGHT_ABOVE) - this.minSectionY + 1;
+        this.sizeZ = SectionPos.blockToSectionCoord(pOrigin.getZ() + TreeShapeBuffer.HORIZONTAL_RADIUS) - this.minSectionZ + 1;
+        this.sections = new PalettedContainer[this.sizeX * this.sizeY * this.sizeZ];
+        this.loaded = new boolean[this.sizeX * this.sizeZ];
+        this.overridePos = pOrigin.immutable();
+        this.overrideState = pOriginState;
+
+        for (int x = 0; x < this.sizeX; x++) {
+            for (int z = 0; z < this.sizeZ; z++) {
+                LevelChunk chunk = pLevel.getChunkSource().getChunkNow(this.minSectionX + x, this.minSectionZ + z);
+                if (chunk == null) continue;
+                this.loaded[z * this.sizeX + x] = true;
+
+                for (int y = 0; y < this.sizeY; y++) {
+                    int sectionIndex = chunk.getSectionIndexFromSectionY(this.minSectionY + y);
+                    if (sectionIndex < 0 || sectionIndex >= chunk.getSectionsCount()) continue;
+
+                    // All-air sections stay null and read as air
+                    LevelChunkSection section = chunk.getSection(sectionIndex);
+                    if (!section.hasOnlyAir()) {
+                        this.sections[(y * this.sizeZ + z) * this.sizeX + x] = section.getStates().copy();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the neighbourhood of the origin, with the origin itself replaced by the given state (e.g. the sapling
+     * cleared out of the way). Must be called on the server thread.
+     */
+    public static LevelSnapshot capture(ServerLevel pLevel, BlockPos pOrigin, BlockState pOriginState) {
+        return new LevelSnapshot(pLevel, pOrigin, pOriginState);
+    }
+
+    public BlockState getBlockState(BlockPos pPos) {
+        if (pPos.equals(this.overridePos)) {
+            return this.overrideState;
+        }
+
+        int x = SectionPos.blockToSectionCoord(pPos.getX()) - this.minSectionX;
+        int y = SectionPos.blockToSectionCoord(pPos.getY()) - this.minSectionY;
+        int z = SectionPos.blockToSectionCoord(pPos.getZ()) - this.minSectionZ;
+        if (x < 0 || x >= this.sizeX || y < 0 || y >= this.sizeY || z < 0 || z >= this.sizeZ || !this.loaded[z * this.sizeX + x]) {
+            return BLOCKED;
+        }
+
+        PalettedContainer<BlockState> section = this.sections[(y * this.sizeZ + z) * this.sizeX + x];
+        return section == null ? AIR : section.get(pPos.getX() & 15, pPos.getY() & 15, pPos.getZ() & 15);
+    }
+
+    @Override
+    public boolean isStateAtPosition(BlockPos pPos, Predicate<BlockState> pState) {
+        return pState.test(getBlockState(pPos));
+    }
+
+    @Override
+    public boolean isFluidAtPosition(BlockPos pPos, Predicate<FluidState> pPredicate) {
+        return pPredicate.test(getBlockState(pPos).getFluidState());
+    }
+
+    @Override
+    public <T extends BlockEntity> Optional<T> getBlockEntity(BlockPos pPos, BlockEntityType<T> pBlockEntityType) {
+        return Optional.empty();
+    }
+
+    /**
+     * Heightmaps aren't copied, so the column is scanned down through the copied sections instead. Blocks above the
+     * box are taken not to count, since the box already covers the tallest tree. A column outside the box or in a
+     * chunk that wasn't loaded reports the build limit, the same "blocked" answer getBlockState gives there.
+     */
+    @Override
+    public BlockPos getHeightmapPos(Heightmap.Types pHeightmapType, BlockPos pPos) {
+        int x = SectionPos.blockToSectionCoord(pPos.getX()) - this.minSectionX;
+        int z = SectionPos.blockToSectionCoord(pPos.getZ()) - this.minSectionZ;
+        if (x < 0 || x >= this.sizeX || z < 0 || z >= this.sizeZ || !this.loaded[z * this.sizeX + x]) {
+            return new BlockPos(pPos.getX(), getMaxBuildHeight(), pPos.getZ());
+        }
+
+        int minY = Math.max(getMinBuildHeight(), SectionPos.sectionToBlockCoord(this.minSectionY));
+        int maxY = Math.min(getMaxBuildHeight() - 1, SectionPos.sectionToBlockCoord(this.minSectionY + this.sizeY) - 1);
+        Predicate<BlockState> counts = pHeightmapType.isOpaque();
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos(pPos.getX(), maxY, pPos.getZ());
+
+        for (int y = maxY; y >= minY; y--) {
+            if (counts.test(getBlockState(cursor.setY(y)))) {
+                return new BlockPos(pPos.getX(), y + 1, pPos.getZ());
+            }
+        }
+
+        // Below the box reads as blocked too
+        return new BlockPos(pPos.getX(), minY, pPos.getZ());
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public int getMinBuildHeight() {
+        return this.minBuildHeight;
+    }
+}
@@ -0,0 +1,89 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A finished tree that hasn't been written yet, for callers that write it to the level themselves. Holds packed
+ * positions and states with the trunk (logs, dirt, anything that isn't a leaf) first and the canopy after, each part
+ * in the shape buffer's section order. Leaves already carry their final DISTANCE.
+ */
+public final class TreeShape {
+    private final long[] positions;
+    private final BlockState[] states;
+    private final int trunkSize;
+    private final int treeHeight;
+
+    private TreeShape(long[] positions, BlockState[] states, int trunkSize, int treeHeight) {
+        this.positions = positions;
+        this.states = states;
+        this.trunkSize = trunkSize;
+        this.treeHeight = treeHeight;
+    }
+
+    /**
+     * Moves everything buffered into a new shape, leaving the buffer empty. The tree height is the one the trunk was
+     * grown to after the free space check, or -1 for shapes holding several trees.
+     */
+    public static TreeShape capture(TreeShapeBuffer pBuffer, int pTreeHeight) {
+        LongArrayList trunkPositions = new LongArrayList();
+        List<BlockState> trunkStates = new ArrayList<>();
+        LongArrayList canopyPositions = new LongArrayList();
+        List<BlockState> canopyStates = new ArrayList<>();
+
+        pBuffer.flush((pos, state) -> {
+            if (state.hasProperty(LeavesBlock.DISTANCE)) {
+                canopyPositions.add(pos.asLong());
+                canopyStates.add(state);
+            } else {
+                trunkPositions.add(pos.asLong());
+                trunkStates.add(state);
+            }
+        });
+
+        int size = trunkPositions.size() + canopyPositions.size();
+        long[] positions = new long[size];
+        BlockState[] states = new BlockState[size];
+        trunkPositions.getElements(0, positions, 0, trunkPositions.size());
+        canopyPositions.getElements(0, positions, trunkPositions.size(), canopyPositions.size());
+        for (int i = 0; i < trunkStates.size(); i++) {
+            states[i] = trunkStates.get(i);
+        }
+        for (int i = 0; i < canopyStates.size(); i++) {
+            states[trunkStates.size() + i] = canopyStates.get(i);
+        }
+
+        return new TreeShape(positions, states, trunkPositions.size(), pTreeHeight);
+    }
+
+    public int size() {
+        return this.positions.length;
+    }
+
+    /**
+     * Number of blocks before the canopy starts
+     */
+    public int trunkSize() {
+        return this.trunkSize;
+    }
+
+    /**
+     * Height the trunk was grown to after the free space check, or -1 if the shape holds several trees
+     */
+    public int treeHeight() {
+        return this.treeHeight;
+    }
+
+    public BlockPos.MutableBlockPos pos(int pIndex, BlockPos.MutableBlockPos pCursor) {
+        return pCursor.set(this.positions[pIndex]);
+    }
+
+    public BlockState state(int pIndex) {
+        return this.states[pIndex];
+    }
+}
@@ -0,0 +1,683 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.jeffd76.ebonytrees.metrics.ModMetrics;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.WorldGenRegion;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.LevelSimulatedReader;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.block.state.BlockBehaviour;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ChunkStatus;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacer;
+import net.minecraft.world.level.material.FluidState;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Voxel buffer that holds the shape of one tree before it touches the level. Blocks are stored as one byte per cell
+ * in a box around the tree origin, indexing a small palette of states (the log axes, leaves, dirt). Probes made
+ * through reader() see the buffered blocks first, so the placers behave exactly as if they wrote to the level.
+ * flush() then writes everything to the real setter grouped by chunk section, and by Y, Z, X inside a section.
+ * <p>
+ * Replaceability probes go through isReplaceable(), which answers from an occupancy snapshot of the box instead of
+ * asking the level each time. The snapshot is read lazily one chunk section at a time, straight from the section's
+ * palette, and blocks the tree has written take precedence over it.
+ * <p>
+ * When the level is a WorldGenRegion, everything outside the chunks the region lets features write to is clipped up
+ * front: it reads as a barrier and isn't replaceable, so the placers shorten or skip whatever would reach past the
+ * edge, and writes that get there anyway are dropped and counted rather than rejected by the region one by one.
+ */
+public class TreeShapeBuffer implements BiConsumer<BlockPos, BlockState>, FoliagePlacer.FoliageSetter {
+    public static final int HORIZONTAL_RADIUS = 16;
+    public static final int DEPTH_BELOW = 8;
+    public static final int HEIGHT_ABOVE = 40;
+
+    private static final int SIZE_X = HORIZONTAL_RADIUS * 2 + 1;
+    private static final int SIZE_Y = DEPTH_BELOW + HEIGHT_ABOVE + 1;
+    private static final int SIZE_Z = HORIZONTAL_RADIUS * 2 + 1;
+    private static final int VOLUME = SIZE_X * SIZE_Y * SIZE_Z;
+
+    // Most chunk sections the box can overlap along each axis, whatever its alignment
+    private static final int SECTIONS_X = (SIZE_X + 14) / 16 + 1;
+    private static final int SECTIONS_Y = (SIZE_Y + 14) / 16 + 1;
+    private static final int SECTIONS_Z = (SIZE_Z + 14) / 16 + 1;
+
+    // Snapshot state of each overlapped section
+    private static final byte SECTION_UNKNOWN = 0;
+    private static final byte SECTION_SCANNED = 1;
+    private static final byte SECTION_PER_CELL = 2;
+
+    // Palette index 0 marks an empty cell, so at most 255 distinct states fit in the byte grid
+    private static final int MAX_PALETTE = 256;
+
+    private static final ThreadLocal<TreeShapeBuffer> LOCAL = ThreadLocal.withInitial(TreeShapeBuffer::new);
+
+    // Chunks around the centre a WorldGenRegion lets features write to
+    private static final int FEATURE_WRITE_RADIUS = 1;
+    private static final BlockState CLIPPED = Blocks.BARRIER.defaultBlockState();
+
+    private final byte[] voxels = new byte[VOLUME];
+    private final BlockState[] palette = new BlockState[MAX_PALETTE];
+    private final Long2ObjectLinkedOpenHashMap<BlockState> overflow = new Long2ObjectLinkedOpenHashMap<>();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private final Reader reader = new Reader();
+
+    // Occupancy snapshot: one replaceable bit per cell, plus which cells were probed individually
+    private final long[] replaceable = new long[(VOLUME + 63) >>> 6];
+    private final long[] probed = new long[(VOLUME + 63) >>> 6];
+    private final byte[] sections = new byte[SECTIONS_X * SECTIONS_Y * SECTIONS_Z];
+
+    private int paletteSize = 1;
+    private int[] frontier = new int[256];
+    private int[] nextFrontier = new int[256];
+    private int[] written = new int[1024];
+    private long[] flushOrder = new long[1024];
+    private int writtenCount;
+    private int levelProbes;
+
+    // Writes dropped and probes answered as blocked outside the writable region, added to ModMetrics in end()
+    private int clippedWrites;
+    private int clippedProbes;
+
+    private LevelSimulatedReader level;
+    private int minX;
+    private int minY;
+    private int minZ;
+    private int clipMinX;
+    private int clipMaxX;
+    private int clipMinZ;
+    private int clipMaxZ;
+    private boolean active;
+
+    private TreeShapeBuffer() {
+    }
+
+    /**
+     * Starts buffering a tree centred on the origin, on top of the given level. Uses this thread's buffer unless it
+     * is already in use further up the stack.
+     */
+    public static TreeShapeBuffer begin(LevelSimulatedReader pLevel, BlockPos pOrigin) {
+        TreeShapeBuffer buffer = LOCAL.get();
+        if (buffer.active) {
+            buffer = new TreeShapeBuffer();
+        }
+
+        buffer.active = true;
+        buffer.level = pLevel;
+        buffer.minX = pOrigin.getX() - HORIZONTAL_RADIUS;
+        buffer.minY = pOrigin.getY() - DEPTH_BELOW;
+        buffer.minZ = pOrigin.getZ() - HORIZONTAL_RADIUS;
+        buffer.levelProbes = 0;
+        buffer.clippedWrites = 0;
+        buffer.clippedProbes = 0;
+
+        if (pLevel instanceof WorldGenRegion region) {
+            ChunkPos centre = region.getCenter();
+            buffer.clipMinX = SectionPos.sectionToBlockCoord(centre.x - FEATURE_WRITE_RADIUS);
+            buffer.clipMaxX = SectionPos.sectionToBlockCoord(centre.x + FEATURE_WRITE_RADIUS, 15);
+            buffer.clipMinZ = SectionPos.sectionToBlockCoord(centre.z - FEATURE_WRITE_RADIUS);
+            buffer.clipMaxZ = SectionPos.sectionToBlockCoord(centre.z + FEATURE_WRITE_RADIUS, 15);
+        } else {
+            buffer.clipMinX = Integer.MIN_VALUE;
+            buffer.clipMaxX = Integer.MAX_VALUE;
+            buffer.clipMinZ = Integer.MIN_VALUE;
+            buffer.clipMaxZ = Integer.MAX_VALUE;
+        }
+        return buffer;
+    }
+
+    /**
+     * Whether the tree may write at the position: always, unless the level is a buffer reader over a WorldGenRegion
+     * and the position is outside the chunks it lets features write to
+     */
+    public static boolean isWritable(LevelSimulatedReader pLevel, BlockPos pPos) {
+        return !(pLevel instanceof Reader reader) || reader.isWritable(pPos);
+    }
+
+    /**
+     * Whether a feature may write at the position in the level, for callers writing without a buffer
+     */
+    public static boolean isInWriteRegion(LevelSimulatedReader pLevel, BlockPos pPos) {
+        if (!(pLevel instanceof WorldGenRegion region)) {
+            return true;
+        }
+
+        ChunkPos centre = region.getCenter();
+        return Math.abs(SectionPos.blockToSectionCoord(pPos.getX()) - centre.x) <= FEATURE_WRITE_RADIUS &&
+                Math.abs(SectionPos.blockToSectionCoord(pPos.getZ()) - centre.z) <= FEATURE_WRITE_RADIUS;
+    }
+
+    public boolean isWritable(BlockPos pPos) {
+        return pPos.getX() >= this.clipMinX && pPos.getX() <= this.clipMaxX &&
+                pPos.getZ() >= this.clipMinZ && pPos.getZ() <= this.clipMaxZ;
+    }
+
+    /**
+     * The level as seen through this buffer: buffered blocks win over the underlying level
+     */
+    public LevelSimulatedReader reader() {
+        return this.reader;
+    }
+
+    /**
+     * The level this buffer was started on
+     */
+    public LevelSimulatedReader level() {
+        return this.level;
+    }
+
+    /**
+     * Reads that went past the buffer to the underlying level since begin(), a whole section scan counting as one
+     */
+    public int levelProbes() {
+        return this.levelProbes;
+    }
+
+    /**
+     * Level probes of the buffer behind a buffer reader, or 0 for any other level
+     */
+    public static int levelProbes(LevelSimulatedReader pLevel) {
+        return pLevel instanceof Reader reader ? reader.buffer().levelProbes : 0;
+    }
+
+    /**
+     * Unwraps a buffer reader to the level underneath it, for hooks that need the real level (e.g. Forge's
+     * onTreeGrow). Any other level is returned as is.
+     */
+    public static LevelSimulatedReader underlyingLevel(LevelSimulatedReader pLevel) {
+        return pLevel instanceof Reader reader ? reader.level() : pLevel;
+    }
+
+    /**
+     * Replaceability check for the placers. Answers from the buffer's occupancy snapshot when the level is a buffer
+     * reader, otherwise probes the level directly.
+     */
+    public static boolean isReplaceable(LevelSimulatedReader pLevel, BlockPos pPos) {
+        return pLevel instanceof Reader reader ? reader.isReplaceable(pPos) :
+                pLevel.isStateAtPosition(pPos, BlockBehaviour.BlockStateBase::canBeReplaced);
+    }
+
+    /**
+     * Whether the block at the position, as the tree currently sees it, can be replaced
+     */
+    public boolean isReplaceable(BlockPos pPos) {
+        if (!isWritable(pPos)) {
+            this.clippedProbes++;
+            return false;
+        }
+
+        int index = indexOf(pPos.getX(), pPos.getY(), pPos.getZ());
+        if (index < 0) {
+            BlockState state = this.overflow.isEmpty() ? null : this.overflow.get(pPos.asLong());
+            if (state != null) {
+                return state.canBeReplaced();
+            }
+
+            this.levelProbes++;
+            return this.level.isStateAtPosition(pPos, BlockBehaviour.BlockStateBase::canBeReplaced);
+        }
+
+        // Blocks the tree has already written win over the snapshot
+        BlockState state = get(pPos);
+        if (state != null) {
+            return state.canBeReplaced();
+        }
+
+        int section = sectionOf(pPos.getX(), pPos.getY(), pPos.getZ());
+        if (this.sections[section] == SECTION_UNKNOWN) {
+            scanSection(section, pPos.getX(), pPos.getY(), pPos.getZ());
+        }
+
+        if (this.sections[section] == SECTION_PER_CELL && !getBit(this.probed, index)) {
+            setBit(this.probed, index);
+            this.levelProbes++;
+            if (this.level.isStateAtPosition(pPos, BlockBehaviour.BlockStateBase::canBeReplaced)) {
+                setBit(this.replaceable, index);
+            }
+        }
+
+        return getBit(this.replaceable, index);
+    }
+
+    /**
+     * Number of distinct positions currently buffered
+     */
+    public int size() {
+        return this.writtenCount + this.overflow.size();
+    }
+
+    @Override
+    public void accept(BlockPos pPos, BlockState pState) {
+        if (!isWritable(pPos)) {
+            this.clippedWrites++;
+            return;
+        }
+
+        int index = indexOf(pPos.getX(), pPos.getY(), pPos.getZ());
+        int paletteIndex = index < 0 ? -1 : paletteIndex(pState);
+
+        if (paletteIndex < 0) {
+            if (index >= 0) {
+                this.voxels[index] = 0;
+            }
+            this.overflow.put(pPos.asLong(), pState);
+            return;
+        }
+
+        if (!this.overflow.isEmpty()) {
+            this.overflow.remove(pPos.asLong());
+        }
+
+        if (this.voxels[index] == 0) {
+            if (this.writtenCount == this.written.length) {
+                this.written = Arrays.copyOf(this.written, this.writtenCount * 2);
+            }
+            this.written[this.writtenCount++] = index;
+        }
+        this.voxels[index] = (byte) paletteIndex;
+    }
+
+    @Override
+    public void set(BlockPos pPos, BlockState pState) {
+        accept(pPos, pState);
+    }
+
+    @Override
+    public boolean isSet(BlockPos pPos) {
+        return get(pPos) != null;
+    }
+
+    /**
+     * Returns the buffered state at the position, or null if the tree hasn't written there
+     */
+    public BlockState get(BlockPos pPos) {
+        int index = indexOf(pPos.getX(), pPos.getY(), pPos.getZ());
+        if (index >= 0) {
+            int paletteIndex = this.voxels[index] & 0xFF;
+            if (paletteIndex != 0) {
+                return this.palette[paletteIndex];
+            }
+        }
+
+        return this.overflow.isEmpty() ? null : this.overflow.get(pPos.asLong());
+    }
+
+    /**
+     * Gives every buffered leaf its final DISTANCE, walking out from the buffered logs one layer at a time the way
+     * LeavesBlock would compute it. Leaves more than six steps from a log keep the decay distance. When some blocks
+     * ended up in the overflow map (outside the box, or past the palette limit), the walk goes over positions instead
+     * so they are resolved too.
+     */
+    public void resolveLeafDistances() {
+        if (!this.overflow.isEmpty()) {
+            resolveLeafDistancesByPosition();
+            return;
+        }
+
+        int frontierSize = 0;
+
+        // Logs seed the walk; every leaf starts out at the decay distance
+        for (int i = 0; i < this.writtenCount; i++) {
+            int index = this.written[i];
+            int paletteIndex = this.voxels[index] & 0xFF;
+            if (paletteIndex == 0) continue;
+
+            BlockState state = this.palette[paletteIndex];
+            if (state.is(BlockTags.LOGS)) {
+                this.frontier = push(this.frontier, frontierSize++, index);
+            } else if (state.hasProperty(LeavesBlock.DISTANCE)) {
+                setState(index, state.setValue(LeavesBlock.DISTANCE, LeavesBlock.DECAY_DISTANCE));
+            }
+        }
+
+        for (int distance = 1; distance < LeavesBlock.DECAY_DISTANCE && frontierSize > 0; distance++) {
+            int nextSize = 0;
+
+            for (int i = 0; i < frontierSize; i++) {
+                int index = this.frontier[i];
+                int x = index % SIZE_X;
+                int z = (index / SIZE_X) % SIZE_Z;
+                int y = index / (SIZE_X * SIZE_Z);
+
+                if (x > 0) nextSize = visitLeaf(index - 1, distance, nextSize);
+                if (x < SIZE_X - 1) nextSize = visitLeaf(index + 1, distance, nextSize);
+                if (z > 0) nextSize = visitLeaf(index - SIZE_X, distance, nextSize);
+                if (z < SIZE_Z - 1) nextSize = visitLeaf(index + SIZE_X, distance, nextSize);
+                if (y > 0) nextSize = visitLeaf(index - SIZE_X * SIZE_Z, distance, nextSize);
+                if (y < SIZE_Y - 1) nextSize = visitLeaf(index + SIZE_X * SIZE_Z, distance, nextSize);
+            }
+
+            int[] swap = this.frontier;
+            this.frontier = this.nextFrontier;
+            this.nextFrontier = swap;
+            frontierSize = nextSize;
+        }
+    }
+
+    /**
+     * Same walk as resolveLeafDistances over packed positions, reading and writing through get() and accept() so
+     * cells in the box and in the overflow map are treated alike
+     */
+    private void resolveLeafDistancesByPosition() {
+        LongArrayList frontier = new LongArrayList();
+        LongArrayList cells = new LongArrayList(size());
+        for (int i = 0; i < this.writtenCount; i++) {
+            int index = this.written[i];
+            if (this.voxels[index] != 0) {
+                cells.add(BlockPos.asLong(this.minX + index % SIZE_X, this.minY + index / (SIZE_X * SIZE_Z),
+                        this.minZ + (index / SIZE_X) % SIZE_Z));
+            }
+        }
+        cells.addAll(this.overflow.keySet());
+
+        for (int i = 0; i < cells.size(); i++) {
+            long pos = cells.getLong(i);
+            BlockState state = get(this.cursor.set(pos));
+            if (state.is(BlockTags.LOGS)) {
+                frontier.add(pos);
+            } else if (state.hasProperty(LeavesBlock.DISTANCE)) {
+                accept(this.cursor, state.setValue(LeavesBlock.DISTANCE, LeavesBlock.DECAY_DISTANCE));
+            }
+        }
+
+        LongArrayList next = new LongArrayList();
+        for (int distance = 1; distance < LeavesBlock.DECAY_DISTANCE && !frontier.isEmpty(); distance++) {
+            for (int i = 0; i < frontier.size(); i++) {
+                long pos = frontier.getLong(i);
+                for (Direction direction : Direction.values()) {
+                    long neighbour = BlockPos.offset(pos, direction);
+                    BlockState state = get(this.cursor.set(neighbour));
+                    if (state == null || !state.hasProperty(LeavesBlock.DISTANCE) ||
+                            state.getValue(LeavesBlock.DISTANCE) <= distance) {
+                        continue;
+                    }
+
+                    accept(this.cursor, state.setValue(LeavesBlock.DISTANCE, distance));
+                    next.add(neighbour);
+                }
+            }
+
+            LongArrayList swap = frontier;
+            frontier = next;
+            next = swap;
+            next.clear();
+        }
+    }
+
+    private int visitLeaf(int pIndex, int pDistance, int pNextSize) {
+        int paletteIndex = this.voxels[pIndex] & 0xFF;
+        if (paletteIndex == 0) return pNextSize;
+
+        BlockState state = this.palette[paletteIndex];
+        if (!state.hasProperty(LeavesBlock.DISTANCE) || state.getValue(LeavesBlock.DISTANCE) <= pDistance) {
+            return pNextSize;
+        }
+
+        setState(pIndex, state.setValue(LeavesBlock.DISTANCE, pDistance));
+        this.nextFrontier = push(this.nextFrontier, pNextSize, pIndex);
+        return pNextSize + 1;
+    }
+
+    /**
+     * Swaps the state of an already written cell, leaving it alone if the palette is full
+     */
+    private void setState(int pIndex, BlockState pState) {
+        int paletteIndex = paletteIndex(pState);
+        if (paletteIndex >= 0) {
+            this.voxels[pIndex] = (byte) paletteIndex;
+        }
+    }
+
+    private static int[] push(int[] pList, int pSize, int pValue) {
+        if (pSize == pList.length) {
+            pList = Arrays.copyOf(pList, pSize * 2);
+        }
+        pList[pSize] = pValue;
+        return pList;
+    }
+
+    /**
+     * Writes every buffered block to the target, section by section, then clears the buffer. The position handed
+     * to the target is a shared cursor and must not be kept.
+     */
+    public void flush(BiConsumer<BlockPos, BlockState> pTarget) {
+        if (this.flushOrder.length < this.writtenCount) {
+            this.flushOrder = new long[this.written.length];
+        }
+
+        int minSectionX = SectionPos.blockToSectionCoord(this.minX);
+        int minSectionY = SectionPos.blockToSectionCoord(this.minY);
+        int minSectionZ = SectionPos.blockToSectionCoord(this.minZ);
+
+        // The voxel index already orders cells by Y, Z, X, so prefixing the section is enough to sort them
+        for (int i = 0; i < this.writtenCount; i++) {
+            int index = this.written[i];
+            int x = this.minX + index % SIZE_X;
+            int z = this.minZ + (index / SIZE_X) % SIZE_Z;
+            int y = this.minY + index / (SIZE_X * SIZE_Z);
+
+            long section = ((long) (SectionPos.blockToSectionCoord(x) - minSectionX) << 6)
+                    | ((long) (SectionPos.blockToSectionCoord(z) - minSectionZ) << 3)
+                    | (SectionPos.blockToSectionCoord(y) - minSectionY);
+            this.flushOrder[i] = section << 32 | index;
+        }
+        Arrays.sort(this.flushOrder, 0, this.writtenCount);
+
+        for (int i = 0; i < this.writtenCount; i++) {
+            int index = (int) this.flushOrder[i];
+            int paletteIndex = this.voxels[index] & 0xFF;
+            if (paletteIndex == 0) continue; // Moved to the overflow map
+
+            this.cursor.set(this.minX + index % SIZE_X,
+                    this.minY + index / (SIZE_X * SIZE_Z),
+                    this.minZ + (index / SIZE_X) % SIZE_Z);
+            pTarget.accept(this.cursor, this.palette[paletteIndex]);
+        }
+
+        // Blocks outside the box or past the palette limit, in the order they were written
+        for (Long2ObjectMap.Entry<BlockState> entry : this.overflow.long2ObjectEntrySet()) {
+            pTarget.accept(this.cursor.set(entry.getLongKey()), entry.getValue());
+        }
+
+        clear();
+    }
+
+    /**
+     * Finishes with the buffer, dropping anything that wasn't flushed, and adds its clip counts to ModMetrics
+     */
+    public void end() {
+        if (this.clippedWrites > 0) {
+            ModMetrics.CLIPPED_WRITES.add(this.clippedWrites);
+        }
+        if (this.clippedProbes > 0) {
+            ModMetrics.CLIPPED_PROBES.add(this.clippedProbes);
+        }
+
+        clear();
+        this.level = null;
+        this.active = false;
+    }
+
+    private void clear() {
+        for (int i = 0; i < this.writtenCount; i++) {
+            this.voxels[this.written[i]] = 0;
+        }
+        this.writtenCount = 0;
+
+        Arrays.fill(this.palette, 1, this.paletteSize, null);
+        this.paletteSize = 1;
+        this.overflow.clear();
+
+        // The level changes once the buffer is flushed, so the snapshot has to be read again
+        Arrays.fill(this.replaceable, 0L);
+        Arrays.fill(this.probed, 0L);
+        Arrays.fill(this.sections, SECTION_UNKNOWN);
+    }
+
+    /**
+     * Reads the part of the box inside one chunk section into the snapshot. Sections the level can't hand out
+     * directly (not a LevelReader, or chunk not available) are probed cell by cell on demand instead.
+     */
+    private void scanSection(int pSection, int pX, int pY, int pZ) {
+        int sectionX = SectionPos.blockToSectionCoord(pX);
+        int sectionY = SectionPos.blockToSectionCoord(pY);
+        int sectionZ = SectionPos.blockToSectionCoord(pZ);
+
+        this.levelProbes++;
+        ChunkAccess chunk = this.level instanceof LevelReader reader ?
+                reader.getChunk(sectionX, sectionZ, ChunkStatus.EMPTY, false) : null;
+        if (chunk == null) {
+            this.sections[pSection] = SECTION_PER_CELL;
+            return;
+        }
+
+        // Outside the build height the level reports (void) air, which is always replaceable
+        int sectionIndex = chunk.getSectionIndexFromSectionY(sectionY);
+        LevelChunkSection chunkSection = sectionIndex >= 0 && sectionIndex < chunk.getSectionsCount() ?
+                chunk.getSection(sectionIndex) : null;
+        boolean allReplaceable = chunkSection == null ||
+                !chunkSection.getStates().maybeHas(state -> !state.canBeReplaced());
+
+        int fromX = Math.max(this.minX, SectionPos.sectionToBlockCoord(sectionX));
+        int fromY = Math.max(this.minY, SectionPos.sectionToBlockCoord(sectionY));
+        int fromZ = Math.max(this.minZ, SectionPos.sectionToBlockCoord(sectionZ));
+        int toX = Math.min(this.minX + SIZE_X, SectionPos.sectionToBlockCoord(sectionX + 1));
+        int toY = Math.min(this.minY + SIZE_Y, SectionPos.sectionToBlockCoord(sectionY + 1));
+        int toZ = Math.min(this.minZ + SIZE_Z, SectionPos.sectionToBlockCoord(sectionZ + 1));
+
+        for (int y = fromY; y < toY; y++) {
+            for (int z = fromZ; z < toZ; z++) {
+                for (int x = fromX; x < toX; x++) {
+                    if (allReplaceable || chunkSection.getBlockState(x & 15, y & 15, z & 15).canBeReplaced()) {
+                        setBit(this.replaceable, indexOf(x, y, z));
+                    }
+                }
+            }
+        }
+
+        this.sections[pSection] = SECTION_SCANNED;
+    }
+
+    private int sectionOf(int pX, int pY, int pZ) {
+        int x = SectionPos.blockToSectionCoord(pX) - SectionPos.blockToSectionCoord(this.minX);
+        int y = SectionPos.blockToSectionCoord(pY) - SectionPos.blockToSectionCoord(this.minY);
+        int z = SectionPos.blockToSectionCoord(pZ) - SectionPos.blockToSectionCoord(this.minZ);
+        return (y * SECTIONS_Z + z) * SECTIONS_X + x;
+    }
+
+    private static void setBit(long[] pBits, int pIndex) {
+        pBits[pIndex >>> 6] |= 1L << pIndex;
+    }
+
+    private static boolean getBit(long[] pBits, int pIndex) {
+        return (pBits[pIndex >>> 6] & (1L << pIndex)) != 0;
+    }
+
+    private int indexOf(int pX, int pY, int pZ) {
+        int x = pX - this.minX;
+        int y = pY - this.minY;
+        int z = pZ - this.minZ;
+
+        if (x < 0 || x >= SIZE_X || y < 0 || y >= SIZE_Y || z < 0 || z >= SIZE_Z) {
+            return -1;
+        }
+
+        return (y * SIZE_Z + z) * SIZE_X + x;
+    }
+
+    private int paletteIndex(BlockState pState) {
+        for (int i = 1; i < this.paletteSize; i++) {
+            if (this.palette[i] == pState) {
+                return i;
+            }
+        }
+
+        if (this.paletteSize == MAX_PALETTE) {
+            return -1;
+        }
+
+        this.palette[this.paletteSize] = pState;
+        return this.paletteSize++;
+    }
+
+    /**
+     * Level view that answers from the buffer first and falls back to the underlying level
+     */
+    private class Reader implements LevelSimulatedReader {
+        private LevelSimulatedReader level() {
+            return level;
+        }
+
+        private TreeShapeBuffer buffer() {
+            return TreeShapeBuffer.this;
+        }
+
+        private boolean isReplaceable(BlockPos pPos) {
+            return TreeShapeBuffer.this.isReplaceable(pPos);
+        }
+
+        private boolean isWritable(BlockPos pPos) {
+            return TreeShapeBuffer.this.isWritable(pPos);
+        }
+
+        @Override
+        public boolean isStateAtPosition(BlockPos pPos, Predicate<BlockState> pState) {
+            if (!isWritable(pPos)) {
+                clippedProbes++;
+                return pState.test(CLIPPED);
+            }
+
+            BlockState state = get(pPos);
+            if (state != null) {
+                return pState.test(state);
+            }
+
+            levelProbes++;
+            return level.isStateAtPosition(pPos, pState);
+        }
+
+        @Override
+        public boolean isFluidAtPosition(BlockPos pPos, Predicate<FluidState> pPredicate) {
+            BlockState state = get(pPos);
+            if (state != null) {
+                return pPredicate.test(state.getFluidState());
+            }
+
+            levelProbes++;
+            return level.isFluidAtPosition(pPos, pPredicate);
+        }
+
+        @Override
+        public <T extends BlockEntity> Optional<T> getBlockEntity(BlockPos pPos, BlockEntityType<T> pBlockEntityType) {
+            if (get(pPos) != null) {
+                return Optional.empty();
+            }
+
+            levelProbes++;
+            return level.getBlockEntity(pPos, pBlockEntityType);
+        }
+
+        @Override
+        public BlockPos getHeightmapPos(Heightmap.Types pHeightmapType, BlockPos pPos) {
+            levelProbes++;
+            return level.getHeightmapPos(pHeightmapType, pPos);
+        }
+    }
+}
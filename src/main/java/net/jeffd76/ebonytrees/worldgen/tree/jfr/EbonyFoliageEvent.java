@@ -0,0 +1,12 @@
+package net.jeffd76.ebonytrees.worldgen.tree.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One EbonyFoliagePlacer.createFoliage call: every canopy layer, branch cover and undercanopy
+ */
+@Name("ebonytrees.FoliagePlacement")
+@Label("Ebony Foliage Placement")
+public class EbonyFoliageEvent extends EbonyTreeGenerationEvent {
+}
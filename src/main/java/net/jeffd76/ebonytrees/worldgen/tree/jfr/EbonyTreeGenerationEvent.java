@@ -0,0 +1,98 @@
+package net.jeffd76.ebonytrees.worldgen.tree.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.EbonyTrunkPlacer;
+import net.jeffd76.ebonytrees.worldgen.tree.custom.TreeShapeBuffer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.LevelSimulatedReader;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+
+/**
+ * Fields shared by the ebony tree generation JFR events. The events are disabled by default, so start() and finish()
+ * do nothing until a recording enables them, e.g. with {@code ebonytrees.TrunkPlacement#enabled=true} in a .jfc file.
+ * Blocks written and level probes are taken from the TreeShapeBuffer the placers write into.
+ */
+@Category({"Ebony Trees", "Tree Generation"})
+@Enabled(false)
+@StackTrace(false)
+public abstract class EbonyTreeGenerationEvent extends Event {
+    @Label("Origin X")
+    int originX;
+
+    @Label("Origin Y")
+    int originY;
+
+    @Label("Origin Z")
+    int originZ;
+
+    @Label("Height")
+    @Description("Height in blocks, 0 where the phase has none")
+    int height;
+
+    @Label("Radius")
+    @Description("Horizontal reach in blocks, 0 where the phase has none")
+    int radius;
+
+    @Label("Blocks Written")
+    int blocksWritten;
+
+    @Label("Level Probes")
+    @Description("Reads that went past the tree's shape buffer to the level")
+    int levelProbes;
+
+    @Label("Context")
+    @Description("Whether the tree is grown by world generation or from a sapling")
+    String context;
+
+    // Transient fields aren't recorded
+    private transient int sizeBefore;
+    private transient int probesBefore;
+
+    /**
+     * Begins timing and remembers where the buffer stood, so finish() can report what this phase added
+     */
+    public void start(LevelSimulatedReader pLevel, Object pBlockSetter) {
+        if (!isEnabled()) return;
+
+        begin();
+        this.sizeBefore = written(pBlockSetter);
+        this.probesBefore = TreeShapeBuffer.levelProbes(pLevel);
+    }
+
+    /**
+     * Ends timing and commits the event if the recording wants it
+     */
+    public void finish(LevelSimulatedReader pLevel, Object pBlockSetter, BlockPos pOrigin, int pHeight, int pRadius,
+                       EbonyTrunkPlacer.GenerationContext pContext) {
+        if (!isEnabled()) return;
+
+        end();
+        if (!shouldCommit()) return;
+
+        this.originX = pOrigin.getX();
+        this.originY = pOrigin.getY();
+        this.originZ = pOrigin.getZ();
+        this.height = pHeight;
+        this.radius = pRadius;
+        this.blocksWritten = written(pBlockSetter) - this.sizeBefore;
+        this.levelProbes = TreeShapeBuffer.levelProbes(pLevel) - this.probesBefore;
+        this.context = pContext != null ? pContext.getSerializedName() : null;
+        commit();
+    }
+
+    /**
+     * The context of the configuration's trunk placer, for the foliage placer which has none of its own
+     */
+    public static EbonyTrunkPlacer.GenerationContext contextOf(TreeConfiguration pConfig) {
+        return pConfig.trunkPlacer instanceof EbonyTrunkPlacer trunkPlacer ? trunkPlacer.context() : null;
+    }
+
+    private static int written(Object pBlockSetter) {
+        return pBlockSetter instanceof TreeShapeBuffer buffer ? buffer.size() : 0;
+    }
+}
@@ -0,0 +1,36 @@
+package net.jeffd76.ebonytrees.worldgen.tree.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One sub-phase of a trunk or foliage placement, nested inside the EbonyTrunkEvent or EbonyFoliageEvent for it
+ */
+@Name("ebonytrees.TreePhase")
+@Label("Ebony Tree Phase")
+public class EbonyTreePhaseEvent extends EbonyTreeGenerationEvent {
+    public static final String ROOTS = "roots";
+    // The trunk column and its buttresses are placed interleaved, one height at a time, so they share a phase
+    public static final String BUTTRESSES = "buttresses";
+    public static final String CANOPY_LAYER = "canopy_layer";
+    public static final String CONNECTIVITY = "connectivity";
+    public static final String BRANCH_COVER = "branch_cover";
+    public static final String UNDERCANOPY = "undercanopy";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Layer")
+    @Description("Canopy layer index, -1 outside the canopy layers")
+    int layer;
+
+    public EbonyTreePhaseEvent(String pPhase) {
+        this(pPhase, -1);
+    }
+
+    public EbonyTreePhaseEvent(String pPhase, int pLayer) {
+        this.phase = pPhase;
+        this.layer = pLayer;
+    }
+}
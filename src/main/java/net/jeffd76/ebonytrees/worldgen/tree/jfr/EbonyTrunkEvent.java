@@ -0,0 +1,12 @@
+package net.jeffd76.ebonytrees.worldgen.tree.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One EbonyTrunkPlacer.placeTrunk call: roots, trunk column and buttresses
+ */
+@Name("ebonytrees.TrunkPlacement")
+@Label("Ebony Trunk Placement")
+public class EbonyTrunkEvent extends EbonyTreeGenerationEvent {
+}
@@ -0,0 +1,157 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.RandomSource;
+
+import java.util.Locale;
+
+/**
+ * Shape equivalence check for the BranchRays tables against the cos/sin/round rays createBranches used before them.
+ * Both are driven from the same seeds over every branch count, layer radius and branch length the foliage placer can
+ * produce, and the branch cells of each layer are compared:
+ * <ul>
+ *     <li>segments landing on a different cell than the trig ray would have picked</li>
+ *     <li>mean number of distinct branch cells per layer, per configuration</li>
+ *     <li>total variation distance between the per-cell hit distributions, per configuration</li>
+ * </ul>
+ * Exits with 1 when any of them goes over its bound. Wired up as the checkBranchRays Gradle task.
+ */
+public class BranchRayEquivalence {
+    private static final int SEEDS = 4096;
+
+    // Layer radii reach MAX_RADIUS * 1.1 + 1 after calculateLayerRadius's jitter
+    private static final int MIN_LAYER_RADIUS = 2;
+    private static final int MAX_LAYER_RADIUS = 9;
+    private static final int MIN_BRANCH_COUNT = 4;
+    private static final int MAX_BRANCH_COUNT = 6;
+
+    private static final double MAX_SEGMENT_MISMATCH = 0.05;
+    private static final double MAX_COVERAGE_CHANGE = 0.05;
+    private static final double MAX_HIT_DISTANCE = 0.05;
+
+    public static void main(String[] args) {
+        long segments = 0;
+        long mismatches = 0;
+        double worstCoverage = 0;
+        double worstHitDistance = 0;
+        String worstCoverageCase = "";
+        String worstHitCase = "";
+
+        for (int branchCount = MIN_BRANCH_COUNT; branchCount <= MAX_BRANCH_COUNT; branchCount++) {
+            for (int radius = MIN_LAYER_RADIUS; radius <= MAX_LAYER_RADIUS; radius++) {
+                // createBranches caps the length at radius - 1, and at 6 below the top 30% of the canopy
+                for (int targetDistance : new int[]{radius - 1, Math.min(6, radius - 1)}) {
+                    Long2IntMap trigHits = new Long2IntOpenHashMap();
+                    Long2IntMap tableHits = new Long2IntOpenHashMap();
+                    long trigCells = 0;
+                    long tableCells = 0;
+
+                    for (int seed = 0; seed < SEEDS; seed++) {
+                        RandomSource trigRandom = RandomSource.create(seed);
+                        RandomSource tableRandom = RandomSource.create(seed);
+                        LongSet trigLayer = new LongOpenHashSet();
+                        LongSet tableLayer = new LongOpenHashSet();
+
+                        for (int branch = 0; branch < branchCount; branch++) {
+                            double angle = (2 * Math.PI) / branchCount * branch + trigRandom.nextDouble() * 0.2 - 0.1;
+                            double cosAngle = Math.cos(angle);
+                            double sinAngle = Math.sin(angle);
+                            BranchRays.Ray ray = BranchRays.get(branchCount, branch,
+                                    BranchRays.jitterBucket(tableRandom), targetDistance);
+
+                            for (int distance = 2; distance <= targetDistance; distance++) {
+                                int trigX = (int) Math.round(cosAngle * distance);
+                                int trigZ = (int) Math.round(sinAngle * distance);
+                                int tableX = ray.x(distance);
+                                int tableZ = ray.z(distance);
+
+                                segments++;
+                                if (trigX != tableX || trigZ != tableZ) {
+                                    mismatches++;
+                                }
+
+                                addBranchCell(trigLayer, trigX, trigZ, radius);
+                                addBranchCell(tableLayer, tableX, tableZ, radius);
+                            }
+                        }
+
+                        trigCells += trigLayer.size();
+                        tableCells += tableLayer.size();
+                        countHits(trigHits, trigLayer);
+                        countHits(tableHits, tableLayer);
+                    }
+
+                    String name = String.format(Locale.ROOT, "branches=%d radius=%d length=%d", branchCount, radius, targetDistance);
+
+                    if (trigCells > 0) {
+                        double coverage = Math.abs(tableCells - trigCells) / (double) trigCells;
+                        if (coverage > worstCoverage) {
+                            worstCoverage = coverage;
+                            worstCoverageCase = name;
+                        }
+                    }
+
+                    double hitDistance = hitDistance(trigHits, trigCells, tableHits, tableCells);
+                    if (hitDistance > worstHitDistance) {
+                        worstHitDistance = hitDistance;
+                        worstHitCase = name;
+                    }
+                }
+            }
+        }
+
+        double segmentMismatch = segments == 0 ? 0 : mismatches / (double) segments;
+        System.out.printf(Locale.ROOT, "Segments on a different cell: %.2f%% of %d (max %.0f%%)%n",
+                segmentMismatch * 100, segments, MAX_SEGMENT_MISMATCH * 100);
+        System.out.printf(Locale.ROOT, "Worst change in cells per layer: %.2f%% at %s (max %.0f%%)%n",
+                worstCoverage * 100, worstCoverageCase, MAX_COVERAGE_CHANGE * 100);
+        System.out.printf(Locale.ROOT, "Worst hit distribution distance: %.3f at %s (max %.3f)%n",
+                worstHitDistance, worstHitCase, MAX_HIT_DISTANCE);
+
+        if (segmentMismatch > MAX_SEGMENT_MISMATCH || worstCoverage > MAX_COVERAGE_CHANGE || worstHitDistance > MAX_HIT_DISTANCE) {
+            System.err.println("Branch ray tables no longer match the trig rays' branch coverage");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Same bound createBranches applies before placing a segment
+     */
+    private static void addBranchCell(LongSet pLayer, int pX, int pZ, int pRadius) {
+        if (pX * pX + pZ * pZ <= pRadius * pRadius * 0.81) {
+            pLayer.add((long) pX << 32 | (pZ & 0xFFFFFFFFL));
+        }
+    }
+
+    private static void countHits(Long2IntMap pHits, LongSet pLayer) {
+        LongIterator cells = pLayer.iterator();
+        while (cells.hasNext()) {
+            long cell = cells.nextLong();
+            pHits.put(cell, pHits.get(cell) + 1);
+        }
+    }
+
+    /**
+     * Total variation distance between two per-cell hit counts, each normalised by its own total
+     */
+    private static double hitDistance(Long2IntMap pFirst, long pFirstTotal, Long2IntMap pSecond, long pSecondTotal) {
+        if (pFirstTotal == 0 || pSecondTotal == 0) {
+            return pFirstTotal == pSecondTotal ? 0 : 1;
+        }
+
+        LongSet cells = new LongOpenHashSet(pFirst.keySet());
+        cells.addAll(pSecond.keySet());
+
+        double distance = 0;
+        LongIterator iterator = cells.iterator();
+        while (iterator.hasNext()) {
+            long cell = iterator.nextLong();
+            distance += Math.abs(pFirst.get(cell) / (double) pFirstTotal - pSecond.get(cell) / (double) pSecondTotal);
+        }
+        return distance / 2;
+    }
+}
@@ -0,0 +1,449 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import com.google.common.collect.Iterables;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.jeffd76.ebonytrees.worldgen.ModConfiguredFeatures;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.RandomSource;
+import net.minecraft.util.valueproviders.UniformInt;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.feature.TreeFeature;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+import net.minecraft.world.level.levelgen.feature.featuresize.TwoLayersFeatureSize;
+import net.minecraft.world.level.levelgen.feature.foliageplacers.FoliagePlacer;
+import net.minecraft.world.level.levelgen.feature.stateproviders.BlockStateProvider;
+import net.minecraft.world.level.levelgen.feature.trunkplacers.TrunkPlacer;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Shape fingerprints for the ebony placers: every case of a fixed matrix of seeds, contexts, heights and radii is
+ * grown on flat in-memory ground and the resulting (position, state) set is hashed, so any change to what the placers
+ * produce shows up as a changed fingerprint. Cases cover the trunk placer and foliage placer on their own, and the
+ * whole tree through EbonyTreeFeature.computeShape with leaf distances resolved.
+ * <p>
+ * Compares against the golden file given by --goldens=path and exits with 1 on any difference. The goldens are
+ * written by --baseline=commit, run with that commit's EbonyTrunkPlacer and EbonyFoliagePlacer ahead of the current
+ * ones on the classpath; whole trees are then grown the way TreeFeature grows them, so the goldens don't depend on any
+ * of the buffering the optimizations added. After an intentional shape change, --regenerate --reason=text rewrites
+ * only the cases that changed and tags each of them with the reason. Wired up as the verifyTreeFingerprints,
+ * baselineTreeFingerprints and regenerateTreeFingerprints Gradle tasks.
+ */
+public class EbonyTreeFingerprints {
+    private static final int GROUND_Y = 64;
+    private static final BlockPos ORIGIN = new BlockPos(0, GROUND_Y, 0);
+    private static final int FOLIAGE_OFFSET = 3;
+
+    private static final int SEEDS = 16;
+    private static final int[] TRUNK_HEIGHTS = {12, 22};
+    private static final int[] FOLIAGE_HEIGHTS = {12, 16};
+    private static final int[] FOLIAGE_RADII = {4, 5, 6, 7};
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    static {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        SimTags.bind();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path goldens = null;
+        String baseline = null;
+        String reason = null;
+        boolean regenerate = false;
+        for (String arg : args) {
+            if (arg.equals("--regenerate")) {
+                regenerate = true;
+            } else if (arg.startsWith("--baseline=")) {
+                baseline = arg.substring("--baseline=".length());
+            } else if (arg.startsWith("--reason=")) {
+                reason = arg.substring("--reason=".length()).trim();
+            } else if (arg.startsWith("--goldens=")) {
+                goldens = Path.of(arg.substring("--goldens=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (goldens == null) {
+            throw new IllegalArgumentException("Missing --goldens=path");
+        }
+
+        Map<String, String> fingerprints = fingerprintAll(baseline != null);
+
+        if (baseline != null) {
+            StringBuilder text = new StringBuilder("# Ebony tree shape fingerprints of the placers at " + baseline +
+                    ", written by the baselineTreeFingerprints task\n");
+            fingerprints.forEach((name, fingerprint) -> text.append(name).append(' ').append(fingerprint).append('\n'));
+            Files.createDirectories(goldens.toAbsolutePath().getParent());
+            Files.writeString(goldens, text.toString(), StandardCharsets.UTF_8);
+            System.out.println("Wrote " + fingerprints.size() + " baseline fingerprints to " + goldens);
+            return;
+        }
+
+        if (!Files.exists(goldens)) {
+            System.err.println("No golden fingerprints at " + goldens + ", run the baselineTreeFingerprints task to create them");
+            System.exit(1);
+        }
+
+        List<String> lines = Files.readAllLines(goldens, StandardCharsets.UTF_8);
+        if (regenerate) {
+            if (reason == null || reason.isEmpty()) {
+                throw new IllegalArgumentException("--regenerate needs --reason=text naming the intentional shape change");
+            }
+            rebaseline(goldens, lines, fingerprints, reason);
+            return;
+        }
+
+        Map<String, String> expected = readGoldens(lines);
+        int mismatches = 0;
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            String golden = expected.remove(entry.getKey());
+            if (!entry.getValue().equals(golden)) {
+                System.err.println("Changed: " + entry.getKey() + " expected " + golden + ", got " + entry.getValue());
+                mismatches++;
+            }
+        }
+        for (String name : expected.keySet()) {
+            System.err.println("No longer generated: " + name);
+            mismatches++;
+        }
+
+        if (mismatches > 0) {
+            System.err.println(mismatches + " of " + fingerprints.size() + " ebony tree fingerprints differ. If the shape " +
+                    "change is intentional, run the regenerateTreeFingerprints task with -Preason=<why> and commit the result.");
+            System.exit(1);
+        }
+        System.out.println("All " + fingerprints.size() + " ebony tree fingerprints match");
+    }
+
+    /**
+     * Rewrites the cases whose fingerprint changed, tagged with the reason, and keeps every other line as it was
+     */
+    private static void rebaseline(Path pGoldens, List<String> pLines, Map<String, String> pFingerprints, String pReason)
+            throws IOException {
+        Map<String, String> expected = readGoldens(pLines);
+        Map<String, String> changed = new LinkedHashMap<>();
+        pFingerprints.forEach((name, fingerprint) -> {
+            if (!fingerprint.equals(expected.get(name))) {
+                changed.put(name, fingerprint);
+            }
+        });
+        int rewritten = changed.size();
+
+        StringBuilder text = new StringBuilder();
+        for (String line : pLines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                text.append(line).append('\n');
+                continue;
+            }
+
+            String name = trimmed.substring(0, trimmed.indexOf(' '));
+            if (!pFingerprints.containsKey(name)) continue;
+
+            String fingerprint = changed.remove(name);
+            text.append(fingerprint == null ? line : name + " " + fingerprint + " # " + pReason).append('\n');
+        }
+        // Cases that didn't exist before go at the end
+        changed.forEach((name, fingerprint) -> text.append(name).append(' ').append(fingerprint).append(" # ").append(pReason).append('\n'));
+
+        Files.writeString(pGoldens, text.toString(), StandardCharsets.UTF_8);
+        System.out.println("Rebaselined " + rewritten + " fingerprints in " + pGoldens);
+    }
+
+    private static Map<String, String> fingerprintAll(boolean pBaseline) {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        EbonyTreeFeature feature = pBaseline ? null : new EbonyTreeFeature(TreeConfiguration.CODEC);
+
+        for (EbonyTrunkPlacer.GenerationContext context : EbonyTrunkPlacer.GenerationContext.values()) {
+            TreeConfiguration config = pBaseline ? baselineTree()
+                    : ModConfiguredFeatures.ebonyTree(context, Blocks.JUNGLE_LOG, Blocks.JUNGLE_LEAVES);
+            FingerprintLevel level = context == EbonyTrunkPlacer.GenerationContext.WORLDGEN
+                    ? new WorldGenFingerprintLevel() : new SaplingFingerprintLevel();
+
+            for (int height : TRUNK_HEIGHTS) {
+                for (int seed = 0; seed < SEEDS; seed++) {
+                    level.reset();
+                    config.trunkPlacer.placeTrunk(level, level, RandomSource.create(seed), height, ORIGIN, config);
+                    fingerprints.put(name("trunk", context.getSerializedName(), "h" + height, seed), fingerprint(level.blocks()));
+                }
+            }
+
+            for (int seed = 0; seed < SEEDS; seed++) {
+                level.reset();
+                String fingerprint;
+                if (pBaseline) {
+                    fingerprint = growLikeTreeFeature(level, RandomSource.create(seed), ORIGIN, config)
+                            ? fingerprint(level.blocks()) : "none";
+                } else {
+                    fingerprint = fingerprint(feature.computeShape(level, RandomSource.create(seed), ORIGIN, config));
+                }
+                fingerprints.put(name("tree", context.getSerializedName(), "full", seed), fingerprint);
+            }
+        }
+
+        // The foliage placer doesn't depend on the context, so one configuration covers it
+        TreeConfiguration config = pBaseline ? baselineTree()
+                : ModConfiguredFeatures.ebonyTree(EbonyTrunkPlacer.GenerationContext.WORLDGEN, Blocks.JUNGLE_LOG, Blocks.JUNGLE_LEAVES);
+        EbonyFoliagePlacer foliagePlacer = (EbonyFoliagePlacer) config.foliagePlacer;
+        FingerprintLevel level = new WorldGenFingerprintLevel();
+        for (int height : FOLIAGE_HEIGHTS) {
+            FoliagePlacer.FoliageAttachment attachment = new FoliagePlacer.FoliageAttachment(ORIGIN.above(height), 0, false);
+            for (int radius : FOLIAGE_RADII) {
+                for (int seed = 0; seed < SEEDS; seed++) {
+                    level.reset();
+                    RandomSource random = RandomSource.create(seed);
+                    int foliageHeight = foliagePlacer.foliageHeight(random, height, config);
+                    foliagePlacer.createFoliage(level, level, random, config, height, attachment, foliageHeight,
+                            radius, FOLIAGE_OFFSET);
+                    fingerprints.put(name("foliage", "r" + radius, "h" + height, seed), fingerprint(level.blocks()));
+                }
+            }
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Same configuration as ModConfiguredFeatures.ebonyTree with vanilla blocks, built against the baseline placers.
+     * Their trunk placer had no context argument, so it is constructed reflectively; it tells world generation from
+     * sapling growth by the level's class name and the free tree height instead.
+     */
+    private static TreeConfiguration baselineTree() {
+        TrunkPlacer trunkPlacer;
+        try {
+            trunkPlacer = EbonyTrunkPlacer.class.getConstructor(int.class, int.class, int.class).newInstance(12, 6, 4);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("--baseline needs the baseline EbonyTrunkPlacer ahead of the current one on the classpath", e);
+        }
+
+        return new TreeConfiguration.TreeConfigurationBuilder(
+                BlockStateProvider.simple(Blocks.JUNGLE_LOG),
+                trunkPlacer,
+                BlockStateProvider.simple(Blocks.JUNGLE_LEAVES),
+                new EbonyFoliagePlacer(UniformInt.of(7, 9), UniformInt.of(2, 4), 10),
+                new TwoLayersFeatureSize(1, 0, 2))
+                .build();
+    }
+
+    /**
+     * TreeFeature.place for a tree without a root placer or decorators, which the ebony trees don't use: the same
+     * size and free space checks as doPlace, both placers writing straight into the level, then TreeFeature's own
+     * updateLeaves over the tree's box. Returns false where TreeFeature wouldn't have placed anything.
+     */
+    private static boolean growLikeTreeFeature(FingerprintLevel pLevel, RandomSource pRandom, BlockPos pPos, TreeConfiguration pConfig) {
+        Set<BlockPos> trunk = new HashSet<>();
+        Set<BlockPos> foliage = new HashSet<>();
+        BiConsumer<BlockPos, BlockState> trunkSetter = (pos, state) -> {
+            trunk.add(pos.immutable());
+            pLevel.accept(pos, state);
+        };
+        FoliagePlacer.FoliageSetter foliageSetter = new FoliagePlacer.FoliageSetter() {
+            @Override
+            public void set(BlockPos pPos, BlockState pState) {
+                foliage.add(pPos.immutable());
+                pLevel.accept(pPos, pState);
+            }
+
+            @Override
+            public boolean isSet(BlockPos pPos) {
+                return foliage.contains(pPos);
+            }
+        };
+
+        int treeHeight = pConfig.trunkPlacer.getTreeHeight(pRandom);
+        int foliageHeight = pConfig.foliagePlacer.foliageHeight(pRandom, treeHeight, pConfig);
+        int foliageRadius = pConfig.foliagePlacer.foliageRadius(pRandom, treeHeight - foliageHeight);
+        if (pPos.getY() < pLevel.getMinBuildHeight() + 1 || pPos.getY() + treeHeight + 1 > pLevel.getMaxBuildHeight()) {
+            return false;
+        }
+
+        OptionalInt minClippedHeight = pConfig.minimumSize.minClippedHeight();
+        int freeTreeHeight = getMaxFreeTreeHeight(pLevel, treeHeight, pPos, pConfig);
+        if (freeTreeHeight < treeHeight && (minClippedHeight.isEmpty() || freeTreeHeight < minClippedHeight.getAsInt())) {
+            return false;
+        }
+
+        for (FoliagePlacer.FoliageAttachment attachment : pConfig.trunkPlacer.placeTrunk(pLevel, trunkSetter, pRandom,
+                freeTreeHeight, pPos, pConfig)) {
+            pConfig.foliagePlacer.createFoliage(pLevel, foliageSetter, pRandom, pConfig, freeTreeHeight, attachment,
+                    foliageHeight, foliageRadius);
+        }
+
+        if (trunk.isEmpty() && foliage.isEmpty()) {
+            return false;
+        }
+
+        BoundingBox box = BoundingBox.encapsulatingPositions(Iterables.concat(trunk, foliage)).orElseThrow();
+        updateLeaves(pLevel, box, trunk);
+        return true;
+    }
+
+    /**
+     * TreeFeature.getMaxFreeTreeHeight, which is private
+     */
+    private static int getMaxFreeTreeHeight(FingerprintLevel pLevel, int pTrunkHeight, BlockPos pPos, TreeConfiguration pConfig) {
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+        for (int y = 0; y <= pTrunkHeight + 1; y++) {
+            int size = pConfig.minimumSize.getSizeAtHeight(pTrunkHeight, y);
+
+            for (int x = -size; x <= size; x++) {
+                for (int z = -size; z <= size; z++) {
+                    cursor.setWithOffset(pPos, x, y, z);
+                    if (!pConfig.trunkPlacer.isFree(pLevel, cursor) ||
+                            !pConfig.ignoreVines && pLevel.isStateAtPosition(cursor, state -> state.is(Blocks.VINE))) {
+                        return y - 2;
+                    }
+                }
+            }
+        }
+
+        return pTrunkHeight;
+    }
+
+    /**
+     * Runs the private TreeFeature.updateLeaves against the level through a LevelAccessor proxy that only answers
+     * block reads and writes, which is all it uses. Its other two position sets hold root and decorator blocks to
+     * leave out of the walk; the ebony trees have neither, so all three get the trunk, which only marks the logs as
+     * visited before they are walked from.
+     */
+    private static void updateLeaves(FingerprintLevel pLevel, BoundingBox pBox, Set<BlockPos> pTrunk) {
+        LevelAccessor accessor = (LevelAccessor) Proxy.newProxyInstance(LevelAccessor.class.getClassLoader(),
+                new Class<?>[]{LevelAccessor.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getBlockState" -> pLevel.getBlockState((BlockPos) args[0]);
+                    case "setBlock" -> {
+                        pLevel.accept((BlockPos) args[0], (BlockState) args[1]);
+                        yield true;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "FingerprintLevelAccessor";
+                    default -> throw new UnsupportedOperationException("TreeFeature.updateLeaves called " + method.getName());
+                });
+
+        try {
+            for (Method method : TreeFeature.class.getDeclaredMethods()) {
+                if (method.getName().equals("updateLeaves")) {
+                    method.setAccessible(true);
+                    method.invoke(null, accessor, pBox, pTrunk, pTrunk, pTrunk);
+                    return;
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Couldn't run TreeFeature.updateLeaves", e);
+        }
+        throw new IllegalStateException("TreeFeature.updateLeaves not found");
+    }
+
+    private static String name(String pPlacer, String pVariant, String pSize, int pSeed) {
+        return String.format(Locale.ROOT, "%s/%s/%s/seed%d", pPlacer, pVariant, pSize, pSeed);
+    }
+
+    private static String fingerprint(TreeShape pShape) {
+        if (pShape == null) {
+            return "none";
+        }
+
+        Long2ObjectMap<BlockState> blocks = new Long2ObjectOpenHashMap<>(pShape.size());
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        for (int i = 0; i < pShape.size(); i++) {
+            blocks.put(pShape.pos(i, cursor).asLong(), pShape.state(i));
+        }
+        return fingerprint(blocks);
+    }
+
+    /**
+     * FNV-1a over the blocks sorted by position, so only what was placed matters and not the order it was written in
+     */
+    private static String fingerprint(Long2ObjectMap<BlockState> pBlocks) {
+        long[] positions = pBlocks.keySet().toLongArray();
+        Arrays.sort(positions);
+
+        long hash = FNV_OFFSET;
+        for (long pos : positions) {
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                hash = (hash ^ (pos >>> shift & 0xFF)) * FNV_PRIME;
+            }
+            for (byte b : pBlocks.get(pos).toString().getBytes(StandardCharsets.UTF_8)) {
+                hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+            }
+        }
+        return String.format(Locale.ROOT, "%016x:%d", hash, positions.length);
+    }
+
+    /**
+     * Reads "name fingerprint" lines, ignoring blank lines, # comment lines and a trailing # reason
+     */
+    private static Map<String, String> readGoldens(List<String> pLines) {
+        Map<String, String> goldens = new LinkedHashMap<>();
+        for (String line : pLines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment).trim();
+            }
+            int space = line.indexOf(' ');
+            goldens.put(line.substring(0, space), line.substring(space + 1).trim());
+        }
+        return goldens;
+    }
+
+    /**
+     * Flat ground with the overworld's build height, which computeShape checks the tree against
+     */
+    private static class FingerprintLevel extends InMemoryLevel implements LevelHeightAccessor {
+        private FingerprintLevel() {
+            super(GROUND_Y);
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinBuildHeight() {
+            return -64;
+        }
+    }
+
+    /**
+     * The baseline trunk placer took a reader whose class name contains "WorldGen" for world generation, unless the
+     * free tree height was below 8. The current placers ignore the class name.
+     */
+    private static final class WorldGenFingerprintLevel extends FingerprintLevel {
+    }
+
+    /**
+     * Read as sapling growth by the baseline trunk placer, unless the free tree height was above 20
+     */
+    private static final class SaplingFingerprintLevel extends FingerprintLevel {
+    }
+}
@@ -0,0 +1,275 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.jeffd76.ebonytrees.worldgen.ModConfiguredFeatures;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Grows ebony trees from a range of seeds on flat in-memory ground, through the same EbonyTreeFeature.computeShape
+ * path sapling growth uses, and prints the distribution of their size, cost and decaying leaves. Chosen seeds can be
+ * exported as structure NBT to look at in game with a structure block. Runs outside FML, so jungle log and leaves
+ * stand in for the ebony blocks, as in the benchmarks.
+ * <p>
+ * Options: --from=N (first seed, 0), --count=N (1000), --context=worldgen|sapling (worldgen),
+ * --export=seed,seed,... and --out=dir (build/sim) for the structures.
+ */
+public class EbonyTreeSimulator {
+    private static final int GROUND_Y = 64;
+    private static final BlockPos ORIGIN = new BlockPos(0, GROUND_Y, 0);
+
+    static {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        SimTags.bind();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        long from = Long.parseLong(options.getOrDefault("from", "0"));
+        int count = Integer.parseInt(options.getOrDefault("count", "1000"));
+        EbonyTrunkPlacer.GenerationContext context =
+                EbonyTrunkPlacer.GenerationContext.valueOf(options.getOrDefault("context", "worldgen").toUpperCase(Locale.ROOT));
+        LongSet exports = new LongOpenHashSet();
+        if (options.containsKey("export")) {
+            for (String seed : options.get("export").split(",")) {
+                exports.add(Long.parseLong(seed.trim()));
+            }
+        }
+        File out = new File(options.getOrDefault("out", "build/sim"));
+
+        TreeConfiguration config = ModConfiguredFeatures.ebonyTree(context, Blocks.JUNGLE_LOG, Blocks.JUNGLE_LEAVES);
+        EbonyTreeFeature feature = new EbonyTreeFeature(TreeConfiguration.CODEC);
+        SimulatedLevel level = new SimulatedLevel();
+        Statistics statistics = new Statistics();
+        int failed = 0;
+
+        for (long seed = from; seed < from + count; seed++) {
+            level.reset();
+            long start = System.nanoTime();
+            TreeShape shape = feature.computeShape(level, RandomSource.create(seed), ORIGIN, config);
+            long nanos = System.nanoTime() - start;
+
+            if (shape == null) {
+                failed++;
+                continue;
+            }
+
+            statistics.record(shape, nanos, level.probes());
+            if (exports.contains(seed)) {
+                File file = new File(out, String.format(Locale.ROOT, "ebony_tree_%s_%d.nbt", context.getSerializedName(), seed));
+                exportStructure(shape, file);
+                System.out.println("Exported seed " + seed + " to " + file);
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "%d %s trees from seeds %d to %d, %d didn't fit%n",
+                count - failed, context.getSerializedName(), from, from + count - 1, failed);
+        statistics.print();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --option=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Writes the shape as a vanilla structure template, with its bounding box corner at the structure origin
+     */
+    private static void exportStructure(TreeShape pShape, File pFile) throws IOException {
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < pShape.size(); i++) {
+            BlockPos pos = pShape.pos(i, cursor);
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxY = Math.max(maxY, pos.getY());
+            maxZ = Math.max(maxZ, pos.getZ());
+        }
+
+        List<BlockState> palette = new ArrayList<>();
+        ListTag blocks = new ListTag();
+        for (int i = 0; i < pShape.size(); i++) {
+            BlockState state = pShape.state(i);
+            int index = palette.indexOf(state);
+            if (index < 0) {
+                index = palette.size();
+                palette.add(state);
+            }
+
+            BlockPos pos = pShape.pos(i, cursor);
+            CompoundTag block = new CompoundTag();
+            block.put("pos", intList(pos.getX() - minX, pos.getY() - minY, pos.getZ() - minZ));
+            block.putInt("state", index);
+            blocks.add(block);
+        }
+
+        ListTag paletteTag = new ListTag();
+        for (BlockState state : palette) {
+            paletteTag.add(NbtUtils.writeBlockState(state));
+        }
+
+        CompoundTag structure = new CompoundTag();
+        structure.put("size", intList(maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1));
+        structure.put("palette", paletteTag);
+        structure.put("blocks", blocks);
+        structure.put("entities", new ListTag());
+        NbtUtils.addCurrentDataVersion(structure);
+
+        pFile.getParentFile().mkdirs();
+        NbtIo.writeCompressed(structure, pFile);
+    }
+
+    private static ListTag intList(int... pValues) {
+        ListTag list = new ListTag();
+        for (int value : pValues) {
+            list.add(IntTag.valueOf(value));
+        }
+        return list;
+    }
+
+    /**
+     * Flat ground with the overworld's build height, which computeShape checks the tree against
+     */
+    private static final class SimulatedLevel extends InMemoryLevel implements LevelHeightAccessor {
+        private SimulatedLevel() {
+            super(GROUND_Y);
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinBuildHeight() {
+            return -64;
+        }
+    }
+
+    /**
+     * Per tree samples, kept whole so the percentiles are exact
+     */
+    private static final class Statistics {
+        private final Map<String, IntArrayList> samples = new LinkedHashMap<>();
+        private final LongArrayList nanos = new LongArrayList();
+
+        private void record(TreeShape pShape, long pNanos, int pProbes) {
+            BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            int maxZ = Integer.MIN_VALUE;
+            int radius = 0;
+            int leaves = 0;
+            int decaying = 0;
+
+            for (int i = 0; i < pShape.size(); i++) {
+                BlockPos pos = pShape.pos(i, cursor);
+                minX = Math.min(minX, pos.getX());
+                minY = Math.min(minY, pos.getY());
+                minZ = Math.min(minZ, pos.getZ());
+                maxX = Math.max(maxX, pos.getX());
+                maxY = Math.max(maxY, pos.getY());
+                maxZ = Math.max(maxZ, pos.getZ());
+
+                BlockState state = pShape.state(i);
+                if (state.hasProperty(LeavesBlock.DISTANCE)) {
+                    leaves++;
+                    radius = Math.max(radius, Math.max(Math.abs(pos.getX() - ORIGIN.getX()), Math.abs(pos.getZ() - ORIGIN.getZ())));
+                    if (state.getValue(LeavesBlock.DISTANCE) >= LeavesBlock.DECAY_DISTANCE) {
+                        decaying++;
+                    }
+                }
+            }
+
+            add("height", maxY - ORIGIN.getY());
+            add("canopy radius", radius);
+            add("blocks", pShape.size());
+            add("trunk blocks", pShape.trunkSize());
+            add("leaves", leaves);
+            add("decaying leaves", decaying);
+            add("box width x", maxX - minX + 1);
+            add("box height", maxY - minY + 1);
+            add("box depth z", maxZ - minZ + 1);
+            add("level probes", pProbes);
+            this.nanos.add(pNanos);
+        }
+
+        private void add(String pName, int pValue) {
+            this.samples.computeIfAbsent(pName, name -> new IntArrayList()).add(pValue);
+        }
+
+        private void print() {
+            if (this.nanos.isEmpty()) return;
+
+            System.out.printf(Locale.ROOT, "%-16s %10s %10s %10s %10s %10s %10s%n", "", "min", "mean", "p50", "p90", "p99", "max");
+            this.samples.forEach((name, values) -> {
+                int[] sorted = values.toIntArray();
+                Arrays.sort(sorted);
+                long sum = 0;
+                for (int value : sorted) {
+                    sum += value;
+                }
+                System.out.printf(Locale.ROOT, "%-16s %10d %10.1f %10d %10d %10d %10d%n", name, sorted[0],
+                        (double) sum / sorted.length, percentile(sorted, 50), percentile(sorted, 90),
+                        percentile(sorted, 99), sorted[sorted.length - 1]);
+            });
+
+            long[] sorted = this.nanos.toLongArray();
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (long value : sorted) {
+                sum += value;
+            }
+            System.out.printf(Locale.ROOT, "%-16s %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", "time (us)",
+                    sorted[0] / 1000.0, sum / 1000.0 / sorted.length, sorted[(sorted.length - 1) / 2] / 1000.0,
+                    sorted[(int) ((sorted.length - 1) * 0.9)] / 1000.0, sorted[(int) ((sorted.length - 1) * 0.99)] / 1000.0,
+                    sorted[sorted.length - 1] / 1000.0);
+        }
+
+        private static int percentile(int[] pSorted, int pPercentile) {
+            return pSorted[(int) ((pSorted.length - 1) * (pPercentile / 100.0))];
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.jeffd76.ebonytrees.worldgen.ModConfiguredFeatures;
+import net.jeffd76.ebonytrees.worldgen.feature.custom.EbonyTreeFeature;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.feature.configurations.TreeConfiguration;
+
+import java.util.List;
+
+/**
+ * Leaf distance check for trees grown together into one buffer, the way EbonyGroveFeature grows a chunk's trees.
+ * The trunks stand at opposite corners of a chunk, one of them raised, so the canopies reach past TreeShapeBuffer's
+ * box into its overflow map. Every leaf's DISTANCE in the finished shape is compared against a walk from the logs over
+ * that shape. Exits with 1 on any mismatch. Wired up as the checkGroveLeaves Gradle task.
+ */
+public class GroveLeafCheck {
+    private static final int GROUND_Y = 64;
+    private static final int SEEDS = 64;
+    private static final List<BlockPos> TRUNKS = List.of(new BlockPos(0, GROUND_Y, 0), new BlockPos(15, GROUND_Y + 16, 15));
+
+    static {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        SimTags.bind();
+    }
+
+    public static void main(String[] args) {
+        EbonyTreeFeature feature = new EbonyTreeFeature(TreeConfiguration.CODEC);
+        TreeConfiguration config = ModConfiguredFeatures.ebonyTree(EbonyTrunkPlacer.GenerationContext.WORLDGEN,
+                Blocks.JUNGLE_LOG, Blocks.JUNGLE_LEAVES);
+        GroveLevel level = new GroveLevel();
+
+        int groves = 0;
+        long leaves = 0;
+        long mismatches = 0;
+        for (int seed = 0; seed < SEEDS; seed++) {
+            level.reset();
+            TreeShape shape = feature.computeShape(level, RandomSource.create(seed), TRUNKS, config);
+            if (shape == null) {
+                System.err.println("No trees grown for seed " + seed);
+                mismatches++;
+                continue;
+            }
+
+            Long2ObjectMap<BlockState> blocks = new Long2ObjectOpenHashMap<>(shape.size());
+            BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+            for (int i = 0; i < shape.size(); i++) {
+                blocks.put(shape.pos(i, cursor).asLong(), shape.state(i));
+            }
+
+            Long2IntMap expected = expectedDistances(blocks);
+            for (Long2ObjectMap.Entry<BlockState> entry : blocks.long2ObjectEntrySet()) {
+                BlockState state = entry.getValue();
+                if (!state.hasProperty(LeavesBlock.DISTANCE)) continue;
+
+                leaves++;
+                int distance = state.getValue(LeavesBlock.DISTANCE);
+                int want = expected.get(entry.getLongKey());
+                if (distance != want) {
+                    if (mismatches < 20) {
+                        System.err.println("Seed " + seed + ": leaf at " + BlockPos.of(entry.getLongKey()).toShortString() +
+                                " has distance " + distance + ", expected " + want);
+                    }
+                    mismatches++;
+                }
+            }
+            groves++;
+        }
+
+        System.out.println("Checked " + leaves + " leaves in " + groves + " groves of " + TRUNKS.size() + " trees");
+        if (mismatches > 0) {
+            System.err.println(mismatches + " grove leaves have the wrong distance");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Steps from the nearest log through leaves, capped at the decay distance
+     */
+    private static Long2IntMap expectedDistances(Long2ObjectMap<BlockState> pBlocks) {
+        Long2IntMap distances = new Long2IntOpenHashMap();
+        distances.defaultReturnValue(LeavesBlock.DECAY_DISTANCE);
+
+        LongArrayList frontier = new LongArrayList();
+        for (Long2ObjectMap.Entry<BlockState> entry : pBlocks.long2ObjectEntrySet()) {
+            if (entry.getValue().is(BlockTags.LOGS)) {
+                frontier.add(entry.getLongKey());
+            }
+        }
+
+        for (int distance = 1; distance < LeavesBlock.DECAY_DISTANCE && !frontier.isEmpty(); distance++) {
+            LongArrayList next = new LongArrayList();
+            for (int i = 0; i < frontier.size(); i++) {
+                for (Direction direction : Direction.values()) {
+                    long neighbour = BlockPos.offset(frontier.getLong(i), direction);
+                    BlockState state = pBlocks.get(neighbour);
+                    if (state != null && state.hasProperty(LeavesBlock.DISTANCE) && !distances.containsKey(neighbour)) {
+                        distances.put(neighbour, distance);
+                        next.add(neighbour);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return distances;
+    }
+
+    /**
+     * Flat ground with the overworld's build height, which computeShape checks the trees against
+     */
+    private static final class GroveLevel extends InMemoryLevel implements LevelHeightAccessor {
+        private GroveLevel() {
+            super(GROUND_Y);
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinBuildHeight() {
+            return -64;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package net.jeffd76.ebonytrees.worldgen.tree.custom;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds the vanilla block tags the placers and leaf distances read, which Bootstrap alone leaves empty: logs seed
+ * the leaf distance walk and count as free space, leaves can be replaced by trees, dirt is left alone under them.
+ * Only the vanilla blocks the sim tools grow trees from are bound.
+ */
+final class SimTags {
+    private SimTags() {
+    }
+
+    static void bind() {
+        Map<TagKey<Block>, List<Holder<Block>>> tags = new LinkedHashMap<>();
+        tags.put(BlockTags.LOGS, holders(Blocks.JUNGLE_LOG));
+        tags.put(BlockTags.LEAVES, holders(Blocks.JUNGLE_LEAVES));
+        tags.put(BlockTags.REPLACEABLE_BY_TREES, holders(Blocks.JUNGLE_LEAVES));
+        tags.put(BlockTags.DIRT, holders(Blocks.DIRT));
+        BuiltInRegistries.BLOCK.bindTags(tags);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static List<Holder<Block>> holders(Block... pBlocks) {
+        List<Holder<Block>> holders = new ArrayList<>();
+        for (Block block : pBlocks) {
+            holders.add(block.builtInRegistryHolder());
+        }
+        return holders;
+    }
+}